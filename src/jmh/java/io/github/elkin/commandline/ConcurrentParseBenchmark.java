@@ -0,0 +1,58 @@
+package io.github.elkin.commandline;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Throughput of one compiled parser shared by threads, it should grow with
+// the number of threads up to the number of cores
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConcurrentParseBenchmark {
+
+  private CompiledParser parser;
+  private String[] args;
+
+  @Setup
+  public void setup() {
+    CommandLineConfiguration configuration = new CommandLineConfiguration();
+    Option level = configuration.addOption("level", "-l");
+    Flag verbose = configuration.addFlag("verbose", "-v");
+    Flag quiet = configuration.addFlag("quiet", "-q");
+    configuration.addRequiredArgument("command");
+    configuration.addOptionalArgument("files");
+
+    GroupValidator validator = new GroupValidator();
+    validator.addGroup().addFlag(verbose).addOption(level);
+    validator.addGroup().addFlag(quiet);
+    configuration.addValidator(validator);
+    parser = configuration.compile();
+
+    args = new String[]{"-v", "-l", "3", "copy", "a", "b", "c"};
+  }
+
+  @Benchmark
+  @Threads(1)
+  public CommandLine oneThread() {
+    return parser.parse(args);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public CommandLine allThreads() {
+    return parser.parse(args);
+  }
+}
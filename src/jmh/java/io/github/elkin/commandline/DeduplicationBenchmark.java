@@ -0,0 +1,85 @@
+package io.github.elkin.commandline;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DeduplicationBenchmark {
+
+  @Param({"100000"})
+  private int numberOfValues;
+
+  @Param({"10", "1000"})
+  private int numberOfDistinctValues;
+
+  @Param({"false", "true"})
+  private boolean isDeduplicated;
+
+  private CompiledParser parser;
+  private String[] args;
+
+  @Setup
+  public void setup() {
+    CommandLineConfiguration configuration = new CommandLineConfiguration();
+    if (isDeduplicated) {
+      configuration.enableValueDeduplication();
+    }
+    configuration.addOption("tag", "--tag")
+        .setMaxNumberOfValues(Integer.MAX_VALUE);
+    configuration.addOptionalArgument("files");
+    parser = configuration.compile();
+
+    // every value is a separate string as if it's read from a file
+    args = new String[numberOfValues];
+    for (int i = 0; i < numberOfValues; i += 2) {
+      args[i] = "--tag=env" + i % numberOfDistinctValues;
+    }
+    for (int i = 1; i < numberOfValues; i += 2) {
+      args[i] = "/some/path/file" + i % numberOfDistinctValues;
+    }
+  }
+
+  @Benchmark
+  public CommandLine parse() {
+    return parser.parse(args);
+  }
+
+  // Number of distinct string objects kept by a parsed command line, it's
+  // what the retained heap is proportional to
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Retained {
+
+    public long strings;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public CommandLine retained(Retained retained) {
+    CommandLine commandLine = parser.parse(args);
+    Set<String> strings = Collections.newSetFromMap(new IdentityHashMap<>());
+    commandLine.get("tag").forEach(strings::add);
+    commandLine.get("files").forEach(strings::add);
+    retained.strings = strings.size();
+    return commandLine;
+  }
+}
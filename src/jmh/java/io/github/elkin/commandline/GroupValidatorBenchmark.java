@@ -0,0 +1,50 @@
+package io.github.elkin.commandline;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GroupValidatorBenchmark {
+
+  @Param({"2", "32"})
+  private int numberOfGroups;
+
+  private CompiledParser parser;
+  private String[] args;
+
+  @Setup
+  public void setup() {
+    CommandLineConfiguration configuration = new CommandLineConfiguration();
+    GroupValidator validator = new GroupValidator();
+    for (int i = 0; i < numberOfGroups; ++i) {
+      validator.addGroup("group" + i)
+          .addOption(configuration.addOption("option" + i, "--option-" + i + "-"))
+          .addFlag(configuration.addFlag("flag" + i, "--flag-" + i + "-"));
+    }
+    configuration.addValidator(validator);
+    parser = configuration.compile();
+
+    // only the first group is used, so the validation passes
+    args = new String[]{"--option-0-", "value", "--flag-0-"};
+  }
+
+  @Benchmark
+  public CommandLine parse() {
+    return parser.parse(args);
+  }
+}
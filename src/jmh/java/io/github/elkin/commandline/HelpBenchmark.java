@@ -0,0 +1,51 @@
+package io.github.elkin.commandline;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HelpBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int numberOfOptions;
+
+  private DefaultHelpGenerator helpGenerator;
+  private CommandLineConfiguration configuration;
+
+  @Setup
+  public void setup() {
+    helpGenerator = new DefaultHelpGenerator();
+    configuration = new CommandLineConfiguration(helpGenerator);
+    configuration.setDescription("Copies files from one place to another");
+    for (int i = 0; i < numberOfOptions; ++i) {
+      configuration.addOption("option" + i, "--option-" + i + "-")
+          .addPrefix("-" + (char) ('A' + i % 26) + i)
+          .setDescription("a rather long description of the option which has to be "
+              + "wrapped to fit the width of the terminal " + i);
+    }
+    configuration.addFlag("verbose", "-v")
+        .setDescription("print every file name");
+    configuration.addRequiredArgument("source");
+    configuration.addOptionalArgument("destinations");
+  }
+
+  @Benchmark
+  public String generateHelp() {
+    return helpGenerator.generateHelp(configuration);
+  }
+}
@@ -0,0 +1,54 @@
+package io.github.elkin.commandline;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Allocation per parse is reported with -prof gc
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseContextBenchmark {
+
+  private CompiledParser parser;
+  private ParseContext context;
+  private String[] args;
+
+  @Setup
+  public void setup() {
+    CommandLineConfiguration configuration = new CommandLineConfiguration();
+    configuration.addOption("level", "--level")
+        .setValueType(ValueType.INT);
+    configuration.addOption("name", "--name")
+        .addDefaultValue("default");
+    configuration.addFlag("verbose", "-v");
+    configuration.addFlag("quiet", "-q");
+    configuration.addRequiredArgument("command");
+    configuration.addOptionalArgument("files");
+    parser = configuration.compile();
+    context = parser.newContext();
+
+    args = new String[] {"-v", "--level", "3", "build", "a.txt", "b.txt", "c.txt"};
+  }
+
+  @Benchmark
+  public CommandLine parse() {
+    return parser.parse(args);
+  }
+
+  @Benchmark
+  public CommandLine parseContext() {
+    return context.parse(args);
+  }
+}
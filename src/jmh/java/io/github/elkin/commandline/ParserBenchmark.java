@@ -0,0 +1,73 @@
+package io.github.elkin.commandline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParserBenchmark {
+
+  private static final int NUMBER_OF_USED_OPTIONS = 10;
+
+  @Param({"10", "100", "10000"})
+  private int numberOfOptions;
+
+  private CommandLineConfiguration configuration;
+  private CompiledParser parser;
+  private String[] args;
+
+  @Setup
+  public void setup() {
+    configuration = new CommandLineConfiguration();
+    for (int i = 0; i < numberOfOptions; ++i) {
+      configuration.addOption("option" + i, "--option-" + i + "-");
+    }
+    configuration.addFlag("verbose", "-v");
+    configuration.addFlag("force", "-f");
+    configuration.addOptionalArgument("files");
+    parser = configuration.compile();
+
+    // options are taken evenly from the whole configuration
+    List<String> argList = new ArrayList<>();
+    int step = Math.max(1, numberOfOptions / NUMBER_OF_USED_OPTIONS);
+    for (int i = 0; i < numberOfOptions; i += step) {
+      argList.add("--option-" + i + "-");
+      argList.add("value" + i);
+    }
+    argList.add("-vf");
+    argList.add("first");
+    argList.add("second");
+    args = argList.toArray(new String[0]);
+  }
+
+  @Benchmark
+  public CommandLine getCommandLine() {
+    return CommandLine.getCommandLine(configuration, args, Util.reThrowExceptionHandler());
+  }
+
+  @Benchmark
+  public CommandLine compiledParse() {
+    return parser.parse(args);
+  }
+
+  @Benchmark
+  public CompiledParser compile() {
+    return configuration.compile();
+  }
+}
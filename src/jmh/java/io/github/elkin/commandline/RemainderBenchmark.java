@@ -0,0 +1,52 @@
+package io.github.elkin.commandline;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RemainderBenchmark {
+
+  @Param({"1000", "100000"})
+  private int numberOfValues;
+
+  @Param
+  private RemainderMode remainderMode;
+
+  private CompiledParser parser;
+  private String[] args;
+
+  @Setup
+  public void setup() {
+    CommandLineConfiguration configuration = new CommandLineConfiguration();
+    configuration.setRemainderMode(remainderMode);
+    configuration.addRequiredArgument("command");
+    configuration.addOptionalArgument("files");
+    parser = configuration.compile();
+
+    args = new String[numberOfValues + 1];
+    args[0] = "command";
+    for (int i = 1; i <= numberOfValues; ++i) {
+      args[i] = "/some/path/file" + i;
+    }
+  }
+
+  @Benchmark
+  public CommandLine parse() {
+    return parser.parse(args);
+  }
+}
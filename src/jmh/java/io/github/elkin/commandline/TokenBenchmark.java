@@ -0,0 +1,68 @@
+package io.github.elkin.commandline;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TokenBenchmark {
+
+  private static final int REPETITIONS = 16;
+
+  public enum Style {
+    FLAG_CLUSTER("-abcd"),
+    LONG_VALUE("--output=file"),
+    ATTACHED_VALUE("-ofile"),
+    SEPARATE_VALUE("-o", "file");
+
+    private final String[] tokens;
+
+    Style(String... tokens) {
+      this.tokens = tokens;
+    }
+  }
+
+  @Param
+  private Style style;
+
+  private CompiledParser parser;
+  private String[] args;
+
+  @Setup
+  public void setup() {
+    CommandLineConfiguration configuration = new CommandLineConfiguration();
+    for (char flag = 'a'; flag <= 'd'; ++flag) {
+      configuration.addFlag("flag" + flag, "-" + flag)
+          .setMaxNumberOfValues(Integer.MAX_VALUE);
+    }
+    configuration.addOption("output", "-o")
+        .addPrefix("--output")
+        .setMaxNumberOfValues(Integer.MAX_VALUE);
+    parser = configuration.compile();
+
+    int length = style.tokens.length;
+    args = new String[REPETITIONS * length];
+    for (int i = 0; i < REPETITIONS; ++i) {
+      System.arraycopy(style.tokens, 0, args, i * length, length);
+    }
+  }
+
+  @Benchmark
+  public CommandLine parse() {
+    return parser.parse(args);
+  }
+}
@@ -0,0 +1,69 @@
+package io.github.elkin.commandline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ValuesBenchmark {
+
+  @Param({"1", "100", "10000"})
+  private int size;
+
+  private Values values;
+
+  @Setup
+  public void setup() {
+    List<String> list = new ArrayList<>(size);
+    for (int i = 0; i < size; ++i) {
+      list.add("value" + i);
+    }
+    values = new ValuesImpl(list);
+  }
+
+  @Benchmark
+  public String firstValue() {
+    return values.getFirstValue();
+  }
+
+  @Benchmark
+  public void indexedAccess(Blackhole blackhole) {
+    for (int i = 0; i < values.size(); ++i) {
+      blackhole.consume(values.getValue(i));
+    }
+  }
+
+  @Benchmark
+  public void iteration(Blackhole blackhole) {
+    for (String value : values) {
+      blackhole.consume(value);
+    }
+  }
+
+  @Benchmark
+  public long stream() {
+    return values.stream().mapToInt(String::length).sum();
+  }
+
+  @Benchmark
+  public List<String> toList() {
+    return values.toList();
+  }
+}
@@ -7,7 +7,7 @@ import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
-abstract class Argument {
+public abstract class Argument {
 
   private final String name;
   private final int position;
@@ -16,6 +16,9 @@ abstract class Argument {
   private boolean isRequired;
   private List<String> defaultValues;
   private String description;
+  private ValueType valueType;
+  private NumberValues numbers;
+  private Conversion<?> conversion;
 
   Argument(String name, boolean isRequired, int position) {
     assert name != null;
@@ -29,17 +32,19 @@ abstract class Argument {
     this.isRequired = isRequired;
     defaultValues = new ArrayList<>();
     description = "";
+    valueType = ValueType.STRING;
   }
 
   abstract void setValue(String value);
 
-  abstract void setRemainder(Values remainder);
+  // Sets the values when there's a remainder, i.e. more than one value
+  abstract void setValues(ValuesImpl values);
 
-  String name() {
+  public String name() {
     return name;
   }
 
-  Consumer<String> consumer() {
+  public Consumer<String> consumer() {
     return consumer;
   }
 
@@ -48,7 +53,7 @@ abstract class Argument {
     return this;
   }
 
-  Predicate<String> checker() {
+  public Predicate<String> checker() {
     return checker;
   }
 
@@ -61,11 +66,11 @@ abstract class Argument {
     return position;
   }
 
-  boolean isRequired() {
+  public boolean isRequired() {
     return isRequired;
   }
 
-  List<String> defaultValues() {
+  public List<String> defaultValues() {
     return Collections.unmodifiableList(defaultValues);
   }
 
@@ -74,7 +79,7 @@ abstract class Argument {
     return this;
   }
 
-  String description() {
+  public String description() {
     return description;
   }
 
@@ -82,4 +87,42 @@ abstract class Argument {
     this.description = Objects.requireNonNull(description);
     return this;
   }
+
+  public ValueType valueType() {
+    return valueType;
+  }
+
+  Argument setValueType(ValueType valueType) {
+    this.valueType = Objects.requireNonNull(valueType);
+    numbers = null;
+    return this;
+  }
+
+  void setNumbers(NumberValues numbers) {
+    this.numbers = numbers;
+  }
+
+  Conversion<?> conversion() {
+    return conversion;
+  }
+
+  void setConversion(Conversion<?> conversion) {
+    assert this.conversion == null;
+    this.conversion = conversion;
+  }
+
+  public IntValues intValues() {
+    NumberValues.checkType(name, valueType, ValueType.INT);
+    return numbers == null ? IntValuesImpl.empty() : numbers.intValues();
+  }
+
+  public LongValues longValues() {
+    NumberValues.checkType(name, valueType, ValueType.LONG);
+    return numbers == null ? LongValuesImpl.empty() : numbers.longValues();
+  }
+
+  public DoubleValues doubleValues() {
+    NumberValues.checkType(name, valueType, ValueType.DOUBLE);
+    return numbers == null ? DoubleValuesImpl.empty() : numbers.doubleValues();
+  }
 }
@@ -0,0 +1,109 @@
+package io.github.elkin.commandline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Reads arguments from a file one at a time, the file is mapped into memory
+// by windows so only the arguments themselves get to the heap
+final class ArgumentFile implements Closeable {
+
+  private static final long WINDOW_SIZE = 64L << 20;
+  private static final int INITIAL_TOKEN_SIZE = 256;
+
+  private final Path path;
+  private final byte separator;
+  private final boolean isNewlineSeparated;
+  private final FileChannel channel;
+  private final long size;
+  private MappedByteBuffer window;
+  private long windowStart;
+  private byte[] token;
+
+  ArgumentFile(Path path, ArgumentSeparator separator) throws IOException {
+    assert path != null;
+    assert separator != null;
+
+    this.path = path;
+    this.separator = separator.value();
+    isNewlineSeparated = separator == ArgumentSeparator.NEWLINE;
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      size = channel.size();
+      window = map(0);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    token = new byte[INITIAL_TOKEN_SIZE];
+  }
+
+  private MappedByteBuffer map(long position) throws IOException {
+    windowStart = position;
+    return channel.map(MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+  }
+
+  Path path() {
+    return path;
+  }
+
+  // Returns the next non-empty argument or null if there're no more of them
+  String next() throws IOException {
+    while (true) {
+      int start = window.position();
+      int limit = window.limit();
+      int end = start;
+      while (end < limit && window.get(end) != separator) {
+        ++end;
+      }
+
+      if (end == limit && windowStart + limit < size) {
+        // the argument doesn't fit into the rest of the window
+        if (start == 0) {
+          throw new IOException(String.format(
+              "Argument at offset %d of file %s is longer than %d bytes",
+              windowStart,
+              path,
+              WINDOW_SIZE));
+        }
+        window = map(windowStart + start);
+        continue;
+      }
+
+      if (start == limit) {
+        return null;
+      }
+
+      int tokenEnd = end;
+      if (isNewlineSeparated && tokenEnd > start && window.get(tokenEnd - 1) == '\r') {
+        --tokenEnd;
+      }
+
+      String result = tokenEnd > start ? decode(start, tokenEnd - start) : null;
+      window.position(end < limit ? end + 1 : end);
+      if (result != null) {
+        return result;
+      }
+    }
+  }
+
+  private String decode(int start, int length) {
+    if (token.length < length) {
+      token = new byte[Math.max(length, token.length * 2)];
+    }
+
+    window.position(start);
+    window.get(token, 0, length);
+    return new String(token, 0, length, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,159 @@
+package io.github.elkin.commandline;
+
+import io.github.elkin.commandline.exception.ArgumentFileException;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+// Provides arguments one at a time, arguments like @file are replaced by the
+// content of the file if argument files are enabled
+final class ArgumentReader implements AutoCloseable {
+
+  private static final char ARGUMENT_FILE_PREFIX = '@';
+
+  private String[] args;
+  private final ArgumentSeparator separator;
+  private final Deque<ArgumentFile> files;
+  private final Set<Path> openedFiles;
+  private int index;
+  private String next;
+  // indices in args of the argument which is read, the peeked one and the
+  // last returned one, -1 if the argument comes from a file
+  private int readIndex;
+  private int nextIndex;
+  private int lastIndex;
+
+  ArgumentReader(String[] args, ArgumentSeparator separator) {
+    this(separator);
+    reset(args);
+  }
+
+  ArgumentReader(ArgumentSeparator separator) {
+    this.separator = separator;
+    files = new ArrayDeque<>();
+    openedFiles = new HashSet<>();
+  }
+
+  // Starts reading the args, the reader has to be closed before
+  void reset(String[] args) {
+    assert args != null;
+    assert files.isEmpty();
+
+    this.args = args;
+    index = 0;
+    next = null;
+  }
+
+  private boolean isArgumentFile(String arg) {
+    return separator != null
+        && !arg.isEmpty()
+        && arg.charAt(0) == ARGUMENT_FILE_PREFIX;
+  }
+
+  private String read() {
+    ArgumentFile file = files.peek();
+    if (file == null) {
+      readIndex = index;
+      return index < args.length ? args[index++] : null;
+    }
+
+    readIndex = -1;
+    try {
+      String result = file.next();
+      if (result == null) {
+        closeFile();
+        return read();
+      }
+      return result;
+    } catch (IOException e) {
+      throw new ArgumentFileException(
+          String.format("Can't read argument file <%s>", file.path()), e);
+    }
+  }
+
+  private void open(String name) {
+    Path path;
+    try {
+      path = Paths.get(name).toRealPath();
+    } catch (IOException | InvalidPathException e) {
+      throw new ArgumentFileException(String.format("Can't open argument file <%s>", name), e);
+    }
+
+    if (!openedFiles.add(path)) {
+      throw new ArgumentFileException(
+          String.format("Argument file <%s> includes itself", path));
+    }
+
+    try {
+      files.push(new ArgumentFile(path, separator));
+    } catch (IOException e) {
+      openedFiles.remove(path);
+      throw new ArgumentFileException(String.format("Can't open argument file <%s>", name), e);
+    }
+  }
+
+  private void closeFile() {
+    ArgumentFile file = files.pop();
+    openedFiles.remove(file.path());
+    try {
+      file.close();
+    } catch (IOException e) {
+      throw new ArgumentFileException(
+          String.format("Can't close argument file <%s>", file.path()), e);
+    }
+  }
+
+  String peek() {
+    while (next == null) {
+      String arg = read();
+      if (arg == null) {
+        return null;
+      }
+
+      if (isArgumentFile(arg)) {
+        open(arg.substring(1));
+        continue;
+      }
+      next = arg;
+      nextIndex = readIndex;
+    }
+
+    return next;
+  }
+
+  boolean hasNext() {
+    return peek() != null;
+  }
+
+  String next() {
+    String result = peek();
+    assert result != null;
+    next = null;
+    lastIndex = nextIndex;
+    return result;
+  }
+
+  // Returns the index in args of the argument returned by next() or -1 if
+  // it's read from a file
+  int index() {
+    return lastIndex;
+  }
+
+  @Override
+  public void close() {
+    while (!files.isEmpty()) {
+      ArgumentFile file = files.pop();
+      try {
+        file.close();
+      } catch (IOException e) {
+        // the file is only read so there's nothing to lose
+      }
+    }
+    openedFiles.clear();
+  }
+}
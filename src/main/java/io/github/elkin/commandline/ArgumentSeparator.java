@@ -0,0 +1,16 @@
+package io.github.elkin.commandline;
+
+public enum ArgumentSeparator {
+  NEWLINE((byte) '\n'),
+  NUL((byte) 0);
+
+  private final byte value;
+
+  ArgumentSeparator(byte value) {
+    this.value = value;
+  }
+
+  byte value() {
+    return value;
+  }
+}
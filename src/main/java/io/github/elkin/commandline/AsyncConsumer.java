@@ -0,0 +1,25 @@
+package io.github.elkin.commandline;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+// Marks a consumer which is run on the executor of async consumers. Values
+// of one option, argument or flag are consumed in order, consumers of
+// different ones run concurrently. A parse waits for all of them.
+final class AsyncConsumer<T> implements Consumer<T> {
+
+  private final Consumer<T> consumer;
+
+  AsyncConsumer(Consumer<T> consumer) {
+    this.consumer = Objects.requireNonNull(consumer);
+  }
+
+  static boolean isAsync(Consumer<?> consumer) {
+    return consumer instanceof AsyncConsumer;
+  }
+
+  @Override
+  public void accept(T value) {
+    consumer.accept(value);
+  }
+}
@@ -0,0 +1,215 @@
+package io.github.elkin.commandline;
+
+import io.github.elkin.commandline.exception.CommandLineException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Parses many command lines with one compiled parser, e.g. recorded
+// invocations of a tool. Args are parsed on the executor, results are
+// passed to the consumer in the input order in the calling thread. At most
+// maxInFlight command lines are parsed or wait for the ones before them, so
+// the memory doesn't depend on the size of the input.
+public final class BatchParser {
+
+  private static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+  private static final HelpRequestHandler IGNORE_HELP_REQUEST_HANDLER =
+      (configuration, args) -> {
+      };
+
+  private final CompiledParser parser;
+  private Executor executor;
+  private int maxInFlight;
+
+  BatchParser(CompiledParser parser) {
+    assert parser != null;
+    parser.checkValidatorsReadCommandLine();
+
+    this.parser = parser;
+    maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+  }
+
+  // By default args are parsed on virtual threads if the JDK has them (21+),
+  // otherwise on the common fork join pool
+  public BatchParser setExecutor(Executor executor) {
+    this.executor = Objects.requireNonNull(executor);
+    return this;
+  }
+
+  public BatchParser setMaxInFlight(int maxInFlight) {
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight can't be less than 1");
+    }
+
+    this.maxInFlight = maxInFlight;
+    return this;
+  }
+
+  // Whitespace is the same as \s of regular expressions, i.e. ASCII spaces,
+  // tabs and line breaks
+  private static boolean isWhitespace(char ch) {
+    return ch == ' ' || ch >= '\t' && ch <= '\r';
+  }
+
+  // Returns the end of the token which starts at or after the index, or the
+  // length if there're no more tokens
+  private static int nextTokenEnd(String line, int index) {
+    int length = line.length();
+    int i = index;
+    while (i < length && isWhitespace(line.charAt(i))) {
+      ++i;
+    }
+    while (i < length && !isWhitespace(line.charAt(i))) {
+      ++i;
+    }
+    return i;
+  }
+
+  // Splits a line into args by whitespace, an empty line has no args. Tokens
+  // are counted before they're cut, so nothing but the array and the tokens
+  // is allocated.
+  public static String[] splitByWhitespace(String line) {
+    String trimmed = line.trim();
+    int length = trimmed.length();
+    // the line is trimmed, so a token follows every end but the last one
+    int numberOfTokens = 0;
+    for (int end = 0; end < length; end = nextTokenEnd(trimmed, end)) {
+      ++numberOfTokens;
+    }
+
+    String[] result = new String[numberOfTokens];
+    int start = 0;
+    for (int i = 0; i < numberOfTokens; ++i) {
+      while (isWhitespace(trimmed.charAt(start))) {
+        ++start;
+      }
+      int end = nextTokenEnd(trimmed, start);
+      result[i] = trimmed.substring(start, end);
+      start = end;
+    }
+    return result;
+  }
+
+  public BatchStats parse(Stream<String[]> commandLines, Consumer<BatchResult> consumer) {
+    Objects.requireNonNull(commandLines);
+    Objects.requireNonNull(consumer);
+
+    if (executor != null) {
+      return parse(commandLines.iterator(), executor, consumer);
+    }
+
+    ExecutorService virtualThreads = newVirtualThreadExecutor();
+    if (virtualThreads == null) {
+      return parse(commandLines.iterator(), ForkJoinPool.commonPool(), consumer);
+    }
+    try {
+      return parse(commandLines.iterator(), virtualThreads, consumer);
+    } finally {
+      virtualThreads.shutdown();
+    }
+  }
+
+  // Every line of the file is a command line, the file is read lazily
+  public BatchStats parse(Path file,
+      Function<String, String[]> splitter,
+      Consumer<BatchResult> consumer) throws IOException {
+    Objects.requireNonNull(file);
+    Objects.requireNonNull(splitter);
+
+    try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+      return parse(lines.map(splitter), consumer);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  public BatchStats parse(Path file, Consumer<BatchResult> consumer) throws IOException {
+    return parse(file, BatchParser::splitByWhitespace, consumer);
+  }
+
+  private BatchStats parse(Iterator<String[]> commandLines,
+      Executor executor,
+      Consumer<BatchResult> consumer) {
+    long start = System.nanoTime();
+    Queue<CompletableFuture<BatchResult>> inFlight = new ArrayDeque<>();
+    Map<Class<? extends CommandLineException>, Long> errorCounts = new LinkedHashMap<>();
+    long index = 0;
+
+    while (commandLines.hasNext()) {
+      if (inFlight.size() == maxInFlight) {
+        deliver(inFlight.remove(), consumer, errorCounts);
+      }
+
+      String[] args = Objects.requireNonNull(commandLines.next());
+      long argsIndex = index++;
+      inFlight.add(CompletableFuture.supplyAsync(() -> parse(argsIndex, args), executor));
+    }
+    while (!inFlight.isEmpty()) {
+      deliver(inFlight.remove(), consumer, errorCounts);
+    }
+
+    return new BatchStats(index, System.nanoTime() - start, errorCounts);
+  }
+
+  private BatchResult parse(long index, String[] args) {
+    try {
+      CommandLine commandLine = parser.parse(
+          args,
+          IGNORE_HELP_REQUEST_HANDLER,
+          Util.reThrowExceptionHandler());
+      return new BatchResult(index, args, commandLine, null);
+    } catch (CommandLineException e) {
+      return new BatchResult(index, args, null, e);
+    }
+  }
+
+  private static void deliver(CompletableFuture<BatchResult> future,
+      Consumer<BatchResult> consumer,
+      Map<Class<? extends CommandLineException>, Long> errorCounts) {
+    BatchResult result;
+    try {
+      result = future.join();
+    } catch (CompletionException e) {
+      // only CommandLineException is a result, others are bugs of checkers
+      // or consumers of the configuration
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+
+    if (!result.isParsed()) {
+      errorCounts.merge(result.exception().getClass(), 1L, Long::sum);
+    }
+    consumer.accept(result);
+  }
+
+  // Executors.newVirtualThreadPerTaskExecutor() is available since Java 21,
+  // the library targets Java 8 so it's looked up by reflection
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class
+          .getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+}
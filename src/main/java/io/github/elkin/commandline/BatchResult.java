@@ -0,0 +1,47 @@
+package io.github.elkin.commandline;
+
+import io.github.elkin.commandline.exception.CommandLineException;
+
+// Command line parsed by BatchParser or the exception it failed with, index
+// is the position of the args in the input
+public final class BatchResult {
+
+  private final long index;
+  private final String[] args;
+  private final CommandLine commandLine;
+  private final CommandLineException exception;
+
+  BatchResult(long index,
+      String[] args,
+      CommandLine commandLine,
+      CommandLineException exception) {
+    assert (commandLine == null) != (exception == null);
+
+    this.index = index;
+    this.args = args;
+    this.commandLine = commandLine;
+    this.exception = exception;
+  }
+
+  public long index() {
+    return index;
+  }
+
+  public String[] args() {
+    return args;
+  }
+
+  public boolean isParsed() {
+    return commandLine != null;
+  }
+
+  // null if the args failed to parse
+  public CommandLine commandLine() {
+    return commandLine;
+  }
+
+  // null if the args are parsed
+  public CommandLineException exception() {
+    return exception;
+  }
+}
@@ -0,0 +1,58 @@
+package io.github.elkin.commandline;
+
+import io.github.elkin.commandline.exception.CommandLineException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public final class BatchStats {
+
+  private final long numberOfCommandLines;
+  private final long numberOfErrors;
+  private final long elapsedNanos;
+  private final Map<Class<? extends CommandLineException>, Long> errorCounts;
+
+  BatchStats(long numberOfCommandLines,
+      long elapsedNanos,
+      Map<Class<? extends CommandLineException>, Long> errorCounts) {
+    this.numberOfCommandLines = numberOfCommandLines;
+    this.elapsedNanos = elapsedNanos;
+    this.errorCounts = Collections.unmodifiableMap(errorCounts);
+    numberOfErrors = errorCounts.values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  public long numberOfCommandLines() {
+    return numberOfCommandLines;
+  }
+
+  public long numberOfErrors() {
+    return numberOfErrors;
+  }
+
+  public long elapsedNanos() {
+    return elapsedNanos;
+  }
+
+  public double commandLinesPerSecond() {
+    return elapsedNanos == 0
+        ? 0
+        : numberOfCommandLines * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+  }
+
+  // Exception type -> number of command lines failed with it
+  public Map<Class<? extends CommandLineException>, Long> errorCounts() {
+    return errorCounts;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder(String.format(
+        "%d command lines, %d errors, %.0f command lines/s",
+        numberOfCommandLines,
+        numberOfErrors,
+        commandLinesPerSecond()));
+    errorCounts.forEach((type, count) ->
+        result.append(String.format("%n  %s: %d", type.getSimpleName(), count)));
+    return result.toString();
+  }
+}
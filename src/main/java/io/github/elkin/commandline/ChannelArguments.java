@@ -0,0 +1,102 @@
+package io.github.elkin.commandline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+// Reads arguments from a channel as soon as they're available, the channel is
+// read by big chunks and only the argument which crosses the chunk boundary
+// is copied
+final class ChannelArguments {
+
+  private static final int CHUNK_SIZE = 64 << 10;
+  private static final int INITIAL_TOKEN_SIZE = 256;
+
+  private final ReadableByteChannel channel;
+  private final byte separator;
+  private final boolean isNewlineSeparated;
+  private final byte[] chunk;
+  private final ByteBuffer buffer;
+  private int position;
+  private int limit;
+  private byte[] token;
+  private int tokenLength;
+  private boolean isEndOfStream;
+
+  ChannelArguments(ReadableByteChannel channel, ArgumentSeparator separator) {
+    assert channel != null;
+    assert separator != null;
+
+    this.channel = channel;
+    this.separator = separator.value();
+    isNewlineSeparated = separator == ArgumentSeparator.NEWLINE;
+    chunk = new byte[CHUNK_SIZE];
+    buffer = ByteBuffer.wrap(chunk);
+    token = new byte[INITIAL_TOKEN_SIZE];
+  }
+
+  private void append(int from, int to) {
+    int length = to - from;
+    if (tokenLength + length > token.length) {
+      byte[] newToken = new byte[Math.max(tokenLength + length, token.length * 2)];
+      System.arraycopy(token, 0, newToken, 0, tokenLength);
+      token = newToken;
+    }
+
+    System.arraycopy(chunk, from, token, tokenLength, length);
+    tokenLength += length;
+  }
+
+  private String decode(byte[] bytes, int from, int to) {
+    if (isNewlineSeparated && to > from && bytes[to - 1] == '\r') {
+      --to;
+    }
+    return to > from ? new String(bytes, from, to - from, StandardCharsets.UTF_8) : null;
+  }
+
+  // Returns the next non-empty argument or null at the end of the stream
+  String next() throws IOException {
+    while (true) {
+      int end = position;
+      while (end < limit && chunk[end] != separator) {
+        ++end;
+      }
+
+      if (end < limit) {
+        String result;
+        if (tokenLength == 0) {
+          result = decode(chunk, position, end);
+        } else {
+          append(position, end);
+          result = decode(token, 0, tokenLength);
+          tokenLength = 0;
+        }
+
+        position = end + 1;
+        if (result != null) {
+          return result;
+        }
+        continue;
+      }
+
+      append(position, limit);
+      position = limit;
+
+      if (isEndOfStream) {
+        String result = decode(token, 0, tokenLength);
+        tokenLength = 0;
+        return result;
+      }
+
+      buffer.clear();
+      int read = channel.read(buffer);
+      if (read < 0) {
+        isEndOfStream = true;
+        read = 0;
+      }
+      position = 0;
+      limit = read;
+    }
+  }
+}
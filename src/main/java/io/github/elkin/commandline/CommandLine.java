@@ -1,10 +1,12 @@
 package io.github.elkin.commandline;
 
 
-import io.github.elkin.commandline.exception.CommandLineException;
 import io.github.elkin.commandline.exception.UnknownNameException;
-import java.util.Collections;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
@@ -16,29 +18,29 @@ public final class CommandLine {
   private static final ExceptionHandler EXCEPTION_HANDLER =
       Util.makeExceptionHandler(1, System.out);
 
-  private final Set<String> names;
-  private final Set<String> flagNames;
-  private final Map<String, Values> values;
-  private final Set<String> flags;
-
-  CommandLine(Set<String> names,
-      Set<String> flagNames,
-      Map<String, Values> values,
-      Set<String> flags) {
-    this.names = names;
-    this.flagNames = flagNames;
-    this.values = values;
-    this.flags = flags;
-  }
-
-  private static boolean isHelpInfoNeeded(String[] args) {
-    for (String arg : args) {
-      if (arg.equals("-h") || arg.equals("--help")) {
-        return true;
-      }
-    }
+  private final CompiledParser parser;
+  private final Values[] values;
+  private final NumberValues[] numbers;
+  private final List<?>[] converted;
+  private final int[] flagCounts;
+  private int numberOfStreamedValues;
+  // slot -> true if the values are the default ones
+  private final boolean[] isDefault;
 
-    return false;
+  CommandLine(CompiledParser parser,
+      Values[] values,
+      NumberValues[] numbers,
+      List<?>[] converted,
+      int[] flagCounts,
+      int numberOfStreamedValues,
+      boolean[] isDefault) {
+    this.parser = parser;
+    this.values = values;
+    this.numbers = numbers;
+    this.converted = converted;
+    this.flagCounts = flagCounts;
+    this.numberOfStreamedValues = numberOfStreamedValues;
+    this.isDefault = isDefault;
   }
 
   public static CommandLine getCommandLine(CommandLineConfiguration commandLineConfiguration,
@@ -75,24 +77,43 @@ public final class CommandLine {
       HelpRequestHandler helpRequestHandler,
       ExceptionHandler exceptionHandler) {
     Objects.requireNonNull(commandLineConfiguration);
-    Objects.requireNonNull(args);
-    Objects.requireNonNull(helpRequestHandler);
-    Objects.requireNonNull(exceptionHandler);
 
-    if (isHelpInfoNeeded(args)) {
-      helpRequestHandler.handleHelpRequest(commandLineConfiguration, args);
-    }
+    return commandLineConfiguration.compile().parse(
+        args,
+        helpRequestHandler,
+        exceptionHandler,
+        true);
+  }
 
-    try {
-      CommandLineParser parser = new CommandLineParser(commandLineConfiguration, args);
-      return parser.getCommandLine();
-    } catch (CommandLineException e) {
-      exceptionHandler.handleException(e, commandLineConfiguration, args);
-    }
+  public static CommandLine getCommandLine(CommandLineConfiguration commandLineConfiguration,
+      String[] args,
+      ReadableByteChannel input,
+      ArgumentSeparator separator) {
+    return getCommandLine(
+        commandLineConfiguration,
+        args,
+        input,
+        separator,
+        HELP_REQUEST_HANDLER,
+        EXCEPTION_HANDLER);
+  }
 
-    assert false;
-    // it's unreachable but javac doesn't believe me so let's trick him
-    return null;
+  public static CommandLine getCommandLine(CommandLineConfiguration commandLineConfiguration,
+      String[] args,
+      ReadableByteChannel input,
+      ArgumentSeparator separator,
+      HelpRequestHandler helpRequestHandler,
+      ExceptionHandler exceptionHandler) {
+    Objects.requireNonNull(commandLineConfiguration);
+    Objects.requireNonNull(input);
+    Objects.requireNonNull(separator);
+
+    return commandLineConfiguration.compile().parse(
+        args,
+        new ChannelArguments(input, separator),
+        helpRequestHandler,
+        exceptionHandler,
+        true);
   }
 
   public static void parse(CommandLineConfiguration commandLineConfiguration,
@@ -116,49 +137,176 @@ public final class CommandLine {
       String[] args,
       HelpRequestHandler helpRequestHandler,
       ExceptionHandler exceptionHandler) {
-    Objects.requireNonNull(commandLineConfiguration);
-    Objects.requireNonNull(args);
-    Objects.requireNonNull(helpRequestHandler);
-    Objects.requireNonNull(exceptionHandler);
+    getCommandLine(commandLineConfiguration, args, helpRequestHandler, exceptionHandler);
+  }
 
-    if (isHelpInfoNeeded(args)) {
-      helpRequestHandler.handleHelpRequest(commandLineConfiguration, args);
-    }
+  // The snapshot is read lazily and isn't checked again, it can be mapped
+  // only with the same configuration it's written with
+  public static CommandLine mapSnapshot(CompiledParser parser, Path path) throws IOException {
+    Objects.requireNonNull(parser);
+    Objects.requireNonNull(path);
 
-    try {
-      CommandLineParser parser = new CommandLineParser(commandLineConfiguration, args);
-      parser.parse();
-    } catch (CommandLineException e) {
-      exceptionHandler.handleException(e, commandLineConfiguration, args);
-    }
+    return Snapshot.map(parser, path);
+  }
+
+  public void writeSnapshot(WritableByteChannel channel) throws IOException {
+    Objects.requireNonNull(channel);
+
+    Snapshot.write(
+        parser,
+        values,
+        numbers,
+        flagCounts,
+        numberOfStreamedValues,
+        isDefault,
+        channel);
+  }
+
+  // Command line of ParseContext is updated by every parse
+  void setNumberOfStreamedValues(int numberOfStreamedValues) {
+    this.numberOfStreamedValues = numberOfStreamedValues;
+  }
+
+  CompiledParser parser() {
+    return parser;
   }
 
   public Set<String> names() {
-    return Collections.unmodifiableSet(names);
+    return parser.names();
   }
 
   public Set<String> flags() {
-    return Collections.unmodifiableSet(flagNames);
+    return parser.flagNames();
   }
 
   public boolean isFlagSet(String name) {
     Util.checkName(name);
 
-    if (!flagNames.contains(name)) {
+    Integer index = parser.flagIndex(name);
+    if (index == null) {
       throw new UnknownNameException(String.format("Unknown flag <%s>", name));
     }
-    return flags.contains(name);
+    return flagCounts[index] > 0;
   }
 
-  public Values get(String name) {
+  // Handles returned by the configuration are resolved by their indices, so
+  // it's just a check that the handle belongs to the configuration
+  public boolean isFlagSet(Flag flag) {
+    Objects.requireNonNull(flag);
+
+    int index = flag.index();
+    List<Flag> flags = parser.flags();
+    if (index >= flags.size() || flags.get(index) != flag) {
+      throw new UnknownNameException(String.format("Unknown flag <%s>", flag.name()));
+    }
+    return flagCounts[index] > 0;
+  }
+
+  private int valueIndex(String name) {
     Util.checkName(name);
 
-    if (!names.contains(name)) {
+    Integer index = parser.valueIndex(name);
+    if (index == null) {
       throw new UnknownNameException(String.format("Unknown name <%s>", name));
     }
+    return index;
+  }
 
-    Values result = this.values.getOrDefault(name, ValuesImpl.empty());
+  public Values get(String name) {
+    Values result = values[valueIndex(name)];
     assert result != null;
     return result;
   }
+
+  private int slot(Option option) {
+    Objects.requireNonNull(option);
+
+    int index = option.index();
+    List<Option> options = parser.options();
+    if (index >= options.size() || options.get(index) != option) {
+      throw new UnknownNameException(String.format("Unknown option <%s>", option.name()));
+    }
+    return index;
+  }
+
+  private int slot(Argument argument) {
+    Objects.requireNonNull(argument);
+
+    int position = argument.position();
+    List<Argument> arguments = parser.arguments();
+    if (position >= arguments.size() || arguments.get(position) != argument) {
+      throw new UnknownNameException(String.format("Unknown argument <%s>", argument.name()));
+    }
+    return parser.argumentSlot(position);
+  }
+
+  public Values get(Option option) {
+    return values[slot(option)];
+  }
+
+  public Values get(OptionalArgument argument) {
+    return values[slot(argument)];
+  }
+
+  public Values get(RequiredArgument argument) {
+    return values[slot(argument)];
+  }
+
+  public Values get(Argument argument) {
+    return values[slot(argument)];
+  }
+
+  // Returns true if there're values in args for the option or argument,
+  // default values aren't counted
+  public boolean isProvided(String name) {
+    int index = valueIndex(name);
+    return !isDefault[index] && !values[index].isEmpty();
+  }
+
+  public boolean isProvided(Option option) {
+    int index = slot(option);
+    return !isDefault[index] && !values[index].isEmpty();
+  }
+
+  public int numberOfValues(String name) {
+    int index = valueIndex(name);
+    int result = values[index].size();
+    if (index == parser.numberOfValueSlots() - 1 && !parser.arguments().isEmpty()) {
+      // values streamed to the last argument aren't kept
+      result += numberOfStreamedValues;
+    }
+    return result;
+  }
+
+  private NumberValues numbers(String name, ValueType valueType) {
+    int index = valueIndex(name);
+    NumberValues.checkType(name, parser.valueType(index), valueType);
+    return numbers[index];
+  }
+
+  public IntValues getInts(String name) {
+    return numbers(name, ValueType.INT).intValues();
+  }
+
+  public LongValues getLongs(String name) {
+    return numbers(name, ValueType.LONG).longValues();
+  }
+
+  public DoubleValues getDoubles(String name) {
+    return numbers(name, ValueType.DOUBLE).doubleValues();
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> List<T> get(TypedOption<T> option) {
+    Objects.requireNonNull(option);
+
+    return (List<T>) converted[slot(option.option())];
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> List<T> get(TypedArgument<T> argument) {
+    Objects.requireNonNull(argument);
+
+    return (List<T>) converted[slot(argument.argument())];
+  }
 }
@@ -8,9 +8,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
-import java.util.SortedSet;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 public class CommandLineConfiguration {
 
@@ -18,7 +23,7 @@ public class CommandLineConfiguration {
   private final List<Argument> arguments;
   private final List<Option> options;
   private final List<Flag> flags;
-  private final SortedSet<String> prefixes;
+  private final NavigableSet<String> prefixes;
   private final Map<String, Option> optionByPrefix;
   private final Map<String, Flag> flagByPrefix;
   private final Map<String, Type> names;
@@ -28,6 +33,13 @@ public class CommandLineConfiguration {
   private String description;
   private int position;
   private int maxLastArgumentSize;
+  private ArgumentSeparator argumentFileSeparator;
+  private ArgumentSeparator standardInputSeparator;
+  private RemainderMode remainderMode;
+  private Executor checkingExecutor;
+  private Executor asyncConsumerExecutor;
+  private int parseCacheSize;
+  private boolean isValueDeduplicationEnabled;
 
   public CommandLineConfiguration(HelpGenerator helpGenerator) {
     description = "";
@@ -41,6 +53,8 @@ public class CommandLineConfiguration {
     names = new HashMap<>();
     position = 0;
     maxLastArgumentSize = Integer.MAX_VALUE;
+    remainderMode = RemainderMode.STORE;
+    asyncConsumerExecutor = ForkJoinPool.commonPool();
     optionPrefixHandler = this::checkOptionPrefix;
     flagPrefixHandler = this::checkFlagPrefix;
     checkers = new ArrayList<>();
@@ -53,7 +67,7 @@ public class CommandLineConfiguration {
     this(new DefaultHelpGenerator());
   }
 
-  private void checkNameDuplicates(String name, Type nameType) {
+  private void checkNameIsUnique(String name) {
     Type type = names.get(name);
     if (type != null) {
       String errorDescription = null;
@@ -75,29 +89,41 @@ public class CommandLineConfiguration {
       }
       throw new DuplicateNameException(String.format(errorDescription, name));
     }
+  }
 
+  private void checkNameDuplicates(String name, Type nameType) {
+    checkNameIsUnique(name);
     names.put(name, nameType);
   }
 
-  private void checkPrefix(String prefix) {
-    // check if prefix has already been registered
-    if (!prefixes.add(prefix)) {
+  private void checkPrefixIsUnique(String prefix) {
+    if (prefixes.contains(prefix)) {
       throw new DuplicatePrefixException(
           String.format("configuration already has <%s> option/flag with prefix",
               prefix));
     }
+  }
+
+  private static void checkPrefixOverlapping(String lower, String higher) {
+    if (lower != null && higher != null && higher.startsWith(lower)) {
+      throw new DuplicatePrefixException(
+          String.format("Option %s is a prefix of option %s", lower, higher));
+    }
+  }
 
-    // check if a long option is a prefix of another long option
+  private void checkPrefix(String prefix) {
+    // check if prefix has already been registered
+    checkPrefixIsUnique(prefix);
+
+    // check if a long option is a prefix of another long option, prefixes are
+    // sorted so a prefix of the new one or a prefix which starts with the new
+    // one can be only next to it
     if (Util.isLongOption(prefix)) {
-      String lastOptionPrefix = " ";
-      for (String p : prefixes) {
-        if (p.startsWith(lastOptionPrefix)) {
-          throw new DuplicatePrefixException(
-              String.format("Option %s is a prefix of option %s", lastOptionPrefix, p));
-        }
-        lastOptionPrefix = p;
-      }
+      checkPrefixOverlapping(prefixes.lower(prefix), prefix);
+      checkPrefixOverlapping(prefix, prefixes.higher(prefix));
     }
+
+    prefixes.add(prefix);
   }
 
   private void checkOptionPrefix(String optionPrefix, Option option) {
@@ -116,21 +142,16 @@ public class CommandLineConfiguration {
     }
   }
 
-  Option getOptionByPrefix(String prefix) {
-    return optionByPrefix.get(prefix);
-  }
-
-  Flag getFlagByPrefix(String prefix) {
-    return flagByPrefix.get(prefix);
+  Map<String, Option> optionByPrefix() {
+    return Collections.unmodifiableMap(optionByPrefix);
   }
 
-  boolean hasFlagWithPrefix(String prefix) {
-    return flagByPrefix.containsKey(prefix);
+  Map<String, Flag> flagByPrefix() {
+    return Collections.unmodifiableMap(flagByPrefix);
   }
 
-  boolean isPrefixRegistered(String prefix) {
-    return optionByPrefix.containsKey(prefix)
-        || flagByPrefix.containsKey(prefix);
+  public CompiledParser compile() {
+    return new CompiledParser(this);
   }
 
   public String description() {
@@ -153,6 +174,12 @@ public class CommandLineConfiguration {
     return argument;
   }
 
+  public <T> TypedArgument<T> addOptionalArgument(String name,
+      Converter<? extends T> converter) {
+    Objects.requireNonNull(converter);
+    return new TypedArgument<>(addOptionalArgument(name), converter);
+  }
+
   public RequiredArgument addRequiredArgument(String name) {
     Util.checkName(name);
     checkNameDuplicates(name, Type.ARGUMENT);
@@ -169,25 +196,95 @@ public class CommandLineConfiguration {
     return argument;
   }
 
+  public <T> TypedArgument<T> addRequiredArgument(String name,
+      Converter<? extends T> converter) {
+    Objects.requireNonNull(converter);
+    return new TypedArgument<>(addRequiredArgument(name), converter);
+  }
+
   public Option addOption(String name, String prefix) {
     Util.checkName(name);
     Util.checkPrefix(prefix);
 
     checkNameDuplicates(name, Type.OPTION);
 
-    Option option = new Option(name, prefix, optionPrefixHandler);
+    Option option = new Option(name, options.size(), prefix, optionPrefixHandler);
     optionPrefixHandler.handle(prefix, option);
     options.add(option);
     return option;
   }
 
+  public <T> TypedOption<T> addOption(String name,
+      String prefix,
+      Converter<? extends T> converter) {
+    Objects.requireNonNull(converter);
+    return new TypedOption<>(addOption(name, prefix), converter);
+  }
+
+  // Options are added in the iteration order of the map, it's the order of
+  // their indices, of the returned list and of the help. A LinkedHashMap
+  // keeps the order the entries are put in, a HashMap has no defined order.
+  // Nothing is added if any of the options can't be added.
+  public List<Option> addOptions(Map<String, String> prefixByName) {
+    Objects.requireNonNull(prefixByName);
+
+    SortedMap<String, String> nameByPrefix = new TreeMap<>();
+    for (Map.Entry<String, String> entry : prefixByName.entrySet()) {
+      String name = Util.checkName(entry.getKey());
+      String prefix = Util.checkPrefix(entry.getValue());
+
+      checkNameIsUnique(name);
+      checkPrefixIsUnique(prefix);
+      if (nameByPrefix.put(prefix, name) != null) {
+        throw new DuplicatePrefixException(
+            String.format("options <%s> and <%s> have the same prefix <%s>",
+                nameByPrefix.get(prefix),
+                name,
+                prefix));
+      }
+    }
+
+    // the whole batch is checked in one pass over the sorted prefixes, every
+    // new long prefix is compared with its closest neighbours among both the
+    // batch and the registered prefixes
+    String previous = null;
+    for (String prefix : nameByPrefix.keySet()) {
+      if (Util.isLongOption(prefix)) {
+        String lower = prefixes.lower(prefix);
+        if (previous != null && (lower == null || previous.compareTo(lower) > 0)) {
+          lower = previous;
+        }
+
+        checkPrefixOverlapping(lower, prefix);
+        checkPrefixOverlapping(prefix, prefixes.higher(prefix));
+      }
+      previous = prefix;
+    }
+
+    List<Option> result = new ArrayList<>(prefixByName.size());
+    for (Map.Entry<String, String> entry : prefixByName.entrySet()) {
+      String name = entry.getKey();
+      String prefix = entry.getValue();
+
+      names.put(name, Type.OPTION);
+      prefixes.add(prefix);
+
+      Option option = new Option(name, options.size(), prefix, optionPrefixHandler);
+      optionByPrefix.put(prefix, option);
+      options.add(option);
+      result.add(option);
+    }
+
+    return result;
+  }
+
   public Flag addFlag(String name, String prefix) {
     Util.checkName(name);
     Util.checkPrefix(prefix);
 
     checkNameDuplicates(name, Type.FLAG);
 
-    Flag flag = new Flag(name, prefix, flagPrefixHandler);
+    Flag flag = new Flag(name, flags.size(), prefix, flagPrefixHandler);
     flagPrefixHandler.handle(prefix, flag);
     flags.add(flag);
     return flag;
@@ -205,6 +302,86 @@ public class CommandLineConfiguration {
     return this;
   }
 
+  public RemainderMode remainderMode() {
+    return remainderMode;
+  }
+
+  public CommandLineConfiguration setRemainderMode(RemainderMode remainderMode) {
+    this.remainderMode = Objects.requireNonNull(remainderMode);
+    return this;
+  }
+
+  public Optional<ArgumentSeparator> argumentFileSeparator() {
+    return Optional.ofNullable(argumentFileSeparator);
+  }
+
+  public CommandLineConfiguration enableArgumentFiles(ArgumentSeparator separator) {
+    argumentFileSeparator = Objects.requireNonNull(separator);
+    return this;
+  }
+
+  public Optional<ArgumentSeparator> standardInputSeparator() {
+    return Optional.ofNullable(standardInputSeparator);
+  }
+
+  // Argument "-" is replaced with positional arguments read from stdin
+  public CommandLineConfiguration enableStandardInput(ArgumentSeparator separator) {
+    standardInputSeparator = Objects.requireNonNull(separator);
+    return this;
+  }
+
+  public Optional<Executor> checkingExecutor() {
+    return Optional.ofNullable(checkingExecutor);
+  }
+
+  // Values of options and arguments are checked on the executor, consumers
+  // get the values after they're checked
+  public CommandLineConfiguration enableParallelChecking(Executor executor) {
+    checkingExecutor = Objects.requireNonNull(executor);
+    return this;
+  }
+
+  public CommandLineConfiguration enableParallelChecking() {
+    return enableParallelChecking(ForkJoinPool.commonPool());
+  }
+
+  public Executor asyncConsumerExecutor() {
+    return asyncConsumerExecutor;
+  }
+
+  // Async consumers are run on the executor, it's the common fork join pool
+  // by default
+  public CommandLineConfiguration setAsyncConsumerExecutor(Executor executor) {
+    asyncConsumerExecutor = Objects.requireNonNull(executor);
+    return this;
+  }
+
+  public boolean isValueDeduplicationEnabled() {
+    return isValueDeduplicationEnabled;
+  }
+
+  // Equal values of options and arguments are kept as one string, it's
+  // useful when a long command line repeats the same values
+  public CommandLineConfiguration enableValueDeduplication() {
+    isValueDeduplicationEnabled = true;
+    return this;
+  }
+
+  public int parseCacheSize() {
+    return parseCacheSize;
+  }
+
+  // Compiled parser keeps the last parsed command lines, checkers and
+  // validators aren't called again for the same args. The cache isn't used
+  // if there're consumers, argument files or standard input.
+  public CommandLineConfiguration enableParseCache(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Parse cache size mustn't be less than 1");
+    }
+    parseCacheSize = size;
+    return this;
+  }
+
   public void addValidator(Validator checker) {
     checkers.add(Objects.requireNonNull(checker));
   }
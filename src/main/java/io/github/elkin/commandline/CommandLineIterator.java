@@ -1,86 +1,227 @@
 package io.github.elkin.commandline;
 
+import io.github.elkin.commandline.exception.ArgumentReadException;
 import io.github.elkin.commandline.exception.NoValueException;
 import io.github.elkin.commandline.exception.UnhandledArgumentException;
 import io.github.elkin.commandline.exception.UnknownPrefixException;
-import java.util.Iterator;
-import java.util.List;
+import java.io.IOException;
+import java.nio.channels.Channels;
 
 class CommandLineIterator {
 
+  static final int NO_INDEX = -1;
+
   private final ArgumentHandler argumentHandler;
-  private final PrefixChecker prefixChecker;
+  private final PrefixIndex prefixIndex;
   private final OptionHandler optionHandler;
   private final FlagHandler flagHandler;
+  private final ArgumentSeparator argumentFileSeparator;
+  private final ArgumentSeparator standardInputSeparator;
+  private final ArgumentReader reader;
+  private boolean isHelpRequested;
 
   CommandLineIterator(ArgumentHandler argumentHandler,
-      PrefixChecker prefixChecker,
+      PrefixIndex prefixIndex,
       OptionHandler optionHandler,
-      FlagHandler flagHandler) {
+      FlagHandler flagHandler,
+      ArgumentSeparator argumentFileSeparator,
+      ArgumentSeparator standardInputSeparator) {
     this.argumentHandler = argumentHandler;
-    this.prefixChecker = prefixChecker;
+    this.prefixIndex = prefixIndex;
     this.optionHandler = optionHandler;
     this.flagHandler = flagHandler;
+    this.argumentFileSeparator = argumentFileSeparator;
+    this.standardInputSeparator = standardInputSeparator;
+    reader = new ArgumentReader(argumentFileSeparator);
   }
 
-  void iterate(List<String> args) {
-    for (Iterator<String> iter = args.iterator(); iter.hasNext(); ) {
-      String arg = iter.next();
+  private static boolean isHelpRequest(String arg) {
+    return arg.equals("-h") || arg.equals("--help");
+  }
 
-      if (Util.isOption(arg)) {
-        if (!prefixChecker.isPrefixedRegistered(arg)) {
-          throw new UnknownPrefixException("Unknown prefix " + arg);
-        }
+  // Any token which is a help request makes the args a help request, it
+  // can't be a value since values don't start with '-'. The parser checks
+  // args before they're iterated, the iterator finds help requests only in
+  // argument files.
+  static boolean containsHelpRequest(String[] args) {
+    for (String arg : args) {
+      if (isHelpRequest(arg)) {
+        return true;
+      }
+    }
+    return false;
+  }
 
-        if (flagHandler.handle(arg)) {
-          continue;
-        }
+  private static NoValueException noValue(String prefix) {
+    return new NoValueException(
+        String.format("No value provided for option with prefix <%s>", prefix));
+  }
 
-        if (!iter.hasNext()) {
-          throw new NoValueException(
-              String.format("No value provided for option with prefix <%s>", arg));
-        }
+  // The iterator can be used for several args one after another
+  void iterate(String[] args, ChannelArguments input) {
+    isHelpRequested = false;
+    reader.reset(args);
+    try {
+      while (reader.hasNext()) {
+        handle(reader);
+      }
 
-        String optionValue = iter.next();
-        if (Util.isOption(optionValue)) {
-          throw new NoValueException(
-              String.format("No value provided for option with prefix <%s>", arg));
-        }
+      if (input != null) {
+        handleInput(input);
+      }
+    } finally {
+      reader.close();
+    }
+  }
 
-        if (optionHandler.handle(arg, optionValue)) {
-          continue;
-        }
+  boolean isHelpRequested() {
+    return isHelpRequested;
+  }
+
+  private void handle(ArgumentReader reader) {
+    String arg = reader.next();
+    if (standardInputSeparator != null && arg.equals("-")) {
+      // stdin isn't closed, it's owned by the process
+      handleInput(new ChannelArguments(Channels.newChannel(System.in), standardInputSeparator));
+      return;
+    }
+
+    if (!Util.isOption(arg)) {
+      handleArgument(arg, reader.index());
+      return;
+    }
+
+    if (reader.index() == NO_INDEX && isHelpRequest(arg)) {
+      isHelpRequested = true;
+    }
 
-        throw new UnhandledArgumentException(String.format("Unhandled argument <%s>", arg));
+    int entry = prefixIndex.find(arg);
+    if (entry == PrefixIndex.NO_ENTRY) {
+      throw new UnknownPrefixException("Unknown prefix " + PrefixIndex.prefixOf(arg));
+    }
+
+    int offset = prefixIndex.valueOffset(arg, entry);
+    boolean hasAttachedValue = offset < arg.length();
+
+    if (prefixIndex.isFlag(entry)) {
+      if (hasAttachedValue && Util.isShortOption(arg)) {
+        // the flag itself is the first one in the cluster
+        handleFlags(arg, offset - 1, reader);
+        return;
       }
 
-      if (!argumentHandler.handle(arg)) {
-        throw new UnhandledArgumentException(String.format("Unhandled argument <%s>", arg));
+      flagHandler.handle(prefixIndex.target(entry), 1);
+      if (hasAttachedValue) {
+        // a value can't be attached to a long flag so it's a separate token
+        handleToken(arg.substring(offset), reader);
       }
+      return;
+    }
+
+    if (!hasAttachedValue) {
+      handleOptionValue(entry, reader);
+      return;
+    }
+
+    String value = arg.substring(offset);
+    if (Util.isOption(value)) {
+      throw noValue(prefixIndex.prefix(entry));
     }
+
+    optionHandler.handle(prefixIndex.target(entry), value);
   }
 
-  @FunctionalInterface
-  interface ArgumentHandler {
+  private void handleOptionValue(int entry, ArgumentReader reader) {
+    if (!reader.hasNext() || Util.isOption(reader.peek())) {
+      throw noValue(prefixIndex.prefix(entry));
+    }
+
+    optionHandler.handle(prefixIndex.target(entry), reader.next());
+  }
+
+  // Handles short flags which stick to each other, e.g. -xvf, the last one
+  // can be an option which takes the next argument as a value. Repeated
+  // flags, e.g. -vvvv, are handled at once.
+  private void handleFlags(String arg, int from, ArgumentReader reader) {
+    int length = arg.length();
+    for (int ch = from; ch < length; ++ch) {
+      char current = arg.charAt(ch);
+      int entry = prefixIndex.findShort(current);
+      if (entry == PrefixIndex.NO_ENTRY) {
+        throw new UnknownPrefixException("Unknown prefix -" + current);
+      }
+
+      if (prefixIndex.isFlag(entry)) {
+        int count = 1;
+        while (ch + 1 < length && arg.charAt(ch + 1) == current) {
+          ++count;
+          ++ch;
+        }
+        flagHandler.handle(prefixIndex.target(entry), count);
+        continue;
+      }
+
+      if (ch + 1 < length) {
+        throw noValue(prefixIndex.prefix(entry));
+      }
+      handleOptionValue(entry, reader);
+    }
+  }
+
+  // Handles a token which is matched as a whole, without splitting
+  private void handleToken(String token, ArgumentReader reader) {
+    if (!Util.isOption(token)) {
+      handleArgument(token, NO_INDEX);
+      return;
+    }
+
+    int entry = prefixIndex.findExact(token);
+    if (entry == PrefixIndex.NO_ENTRY) {
+      throw new UnknownPrefixException("Unknown prefix " + token);
+    }
+
+    if (prefixIndex.isFlag(entry)) {
+      flagHandler.handle(prefixIndex.target(entry), 1);
+      return;
+    }
+    handleOptionValue(entry, reader);
+  }
 
-    boolean handle(String argument);
+  // Every argument is handled as soon as it's read, so a producer on the
+  // other side of the channel doesn't have to finish first
+  private void handleInput(ChannelArguments input) {
+    try {
+      for (String arg = input.next(); arg != null; arg = input.next()) {
+        handleArgument(arg, NO_INDEX);
+      }
+    } catch (IOException e) {
+      throw new ArgumentReadException("Can't read arguments from the input", e);
+    }
+  }
+
+  private void handleArgument(String arg, int index) {
+    if (!argumentHandler.handle(arg, index)) {
+      throw new UnhandledArgumentException(String.format("Unhandled argument <%s>", arg));
+    }
   }
 
   @FunctionalInterface
-  interface PrefixChecker {
+  interface ArgumentHandler {
 
-    boolean isPrefixedRegistered(String prefix);
+    // index is the position of the argument in args, or NO_INDEX if it
+    // doesn't come from there as it is
+    boolean handle(String argument, int index);
   }
 
   @FunctionalInterface
   interface OptionHandler {
 
-    boolean handle(String prefix, String value);
+    void handle(int option, String value);
   }
 
   @FunctionalInterface
   interface FlagHandler {
 
-    boolean handle(String prefix);
+    void handle(int flag, int count);
   }
 }
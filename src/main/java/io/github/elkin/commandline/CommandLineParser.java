@@ -1,293 +1,934 @@
 package io.github.elkin.commandline;
 
 import io.github.elkin.commandline.exception.CheckException;
+import io.github.elkin.commandline.exception.CommandLineException;
+import io.github.elkin.commandline.exception.ConsumerException;
 import io.github.elkin.commandline.exception.SizeViolationException;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 class CommandLineParser {
 
-  private final CommandLineConfiguration configuration;
-  private final List<String> args;
-  private final Map<String, List<String>> values;
-  private final Set<String> flags;
-  private final Iterator<Argument> argumentIterator;
-  private final List<String> argumentRemainder;
-  private Argument argument;
-
-  CommandLineParser(CommandLineConfiguration configuration, String[] args) {
-    this.configuration = configuration;
-    this.args = preprocessArguments(args);
-    values = new HashMap<>();
-    flags = new HashSet<>();
-    argumentRemainder = new ArrayList<>();
-    argumentIterator = this.configuration.arguments().iterator();
-  }
-
-  private List<String> preprocessArguments(String[] args) {
-    List<String> result = new ArrayList<>(args.length);
-    for (String arg : args) {
-      if (Util.isShortOption(arg) && arg.length() > Util.SHORT_OPTION_LENGTH) {
-        String prefix = arg.substring(0, Util.SHORT_OPTION_LENGTH);
-        result.add(prefix);
-
-        String value = arg.substring(Util.SHORT_OPTION_LENGTH);
-        if (configuration.hasFlagWithPrefix(prefix)) {
-          for (int ch = 0; ch < value.length(); ++ch) {
-            result.add("-" + value.charAt(ch));
-          }
-        } else {
-          result.add(value);
-        }
+  // values of one option, argument or flag which wait for async consumers
+  static final int MAX_ASYNC_VALUES = 1024;
+
+  private final CompiledParser parser;
+  private final boolean updateConfiguration;
+  private final ParallelChecker parallelChecker;
+  private final CommandLineIterator commandLineIterator;
+  private HelpRequestHandler helpRequestHandler;
+  private String[] args;
+  private ChannelArguments input;
+  private final List<String>[] values;
+  // slot -> range in args which keeps all the values of the slot, values
+  // aren't copied while they go one after another in args
+  private final int[] sliceStarts;
+  private final int[] sliceEnds;
+  private final NumberValues[] numbers;
+  private final List<Object>[] converted;
+  private final int[] flagCounts;
+  private final boolean[] isDefault;
+  // value -> the first equal value, it lives only while args are parsed
+  private final Map<String, String> valuePool;
+  // values of the last argument if they're kept off the heap
+  private final OffHeapValues offHeapValues;
+  // slots and flags which get values, they're reset before the parser is
+  // used again
+  private final int[] touchedSlots;
+  private final boolean[] isTouched;
+  private final int[] touchedFlags;
+  private int numberOfTouchedSlots;
+  private int numberOfTouchedFlags;
+  // lists which are filled again by a reused parser and the command line
+  // which is returned by it, they're null if the parser is used once
+  private final List<String>[] spareValues;
+  private final List<Object>[] spareConverted;
+  private final CommandLine reusedCommandLine;
+  // slot or flag -> consumers of its values which run on the executor of
+  // async consumers, each one starts after the previous one, null if there're
+  // no async consumers
+  private final CompletableFuture<Void>[] asyncConsumers;
+  // slot or flag -> number of values in its chain of async consumers, the
+  // parse waits for the chain when it's full, so the chain doesn't grow with
+  // the input, e.g. with a streamed remainder
+  private final int[] numberOfAsyncValues;
+  private int numberOfArguments;
+  private int numberOfStreamedValues;
+  private boolean isHelpRequested;
+
+  CommandLineParser(CompiledParser parser,
+      String[] args,
+      ChannelArguments input,
+      HelpRequestHandler helpRequestHandler,
+      boolean updateConfiguration) {
+    this(parser, updateConfiguration, false);
+    start(args, input, helpRequestHandler);
+  }
+
+  // Parser which is reused by ParseContext
+  CommandLineParser(CompiledParser parser) {
+    this(parser, false, true);
+  }
+
+  @SuppressWarnings("unchecked")
+  private CommandLineParser(CompiledParser parser,
+      boolean updateConfiguration,
+      boolean isReused) {
+    if (!updateConfiguration) {
+      parser.checkValidatorsReadCommandLine();
+    }
 
-        continue;
+    this.parser = parser;
+    this.updateConfiguration = updateConfiguration;
+    parallelChecker = parser.checkingExecutor() == null
+        ? null
+        : new ParallelChecker(parser.checkingExecutor());
+    commandLineIterator = new CommandLineIterator(
+        this::handleArgument,
+        parser.prefixIndex(),
+        this::handleOption,
+        this::handleFlag,
+        parser.argumentFileSeparator(),
+        parser.standardInputSeparator());
+    values = (List<String>[]) new List<?>[parser.numberOfValueSlots()];
+    sliceStarts = new int[values.length];
+    sliceEnds = new int[values.length];
+    Arrays.fill(sliceStarts, CommandLineIterator.NO_INDEX);
+    numbers = new NumberValues[values.length];
+    converted = (List<Object>[]) new List<?>[values.length];
+    for (int slot = 0; slot < numbers.length; ++slot) {
+      ValueType valueType = parser.valueType(slot);
+      if (valueType != ValueType.STRING) {
+        numbers[slot] = new NumberValues(valueType);
       }
+    }
+    flagCounts = new int[parser.flags().size()];
+    isDefault = new boolean[values.length];
+    valuePool = parser.isValueDeduplicationEnabled() ? new HashMap<>() : null;
+    offHeapValues = parser.remainderMode() == RemainderMode.OFF_HEAP
+        && !parser.arguments().isEmpty()
+        ? new OffHeapValues()
+        : null;
+    touchedSlots = new int[values.length];
+    isTouched = new boolean[values.length];
+    touchedFlags = new int[flagCounts.length];
+    asyncConsumers = parser.asyncConsumerExecutor() == null
+        ? null
+        : (CompletableFuture<Void>[]) new CompletableFuture<?>[values.length + flagCounts.length];
+    numberOfAsyncValues = asyncConsumers == null
+        ? null
+        : new int[asyncConsumers.length];
+
+    if (!isReused) {
+      spareValues = null;
+      spareConverted = null;
+      reusedCommandLine = null;
+      return;
+    }
+
+    spareValues = (List<String>[]) new List<?>[values.length];
+    spareConverted = (List<Object>[]) new List<?>[values.length];
+    Values[] commandLineValues = new Values[values.length];
+    List<?>[] convertedValues = new List<?>[values.length];
+    for (int slot = 0; slot < values.length; ++slot) {
+      commandLineValues[slot] = new ValuesImpl(new SlotValues(slot));
+      convertedValues[slot] = Collections.unmodifiableList(new SlotConverted(slot));
+    }
+    reusedCommandLine = new CommandLine(
+        parser,
+        commandLineValues,
+        numbers,
+        convertedValues,
+        flagCounts,
+        0,
+        isDefault);
+  }
 
-      if (Util.isLongOption(arg)) {
-        int index = arg.indexOf('=');
-        if (index >= 0) {
-          result.add(arg.substring(0, index));
+  private void start(String[] args,
+      ChannelArguments input,
+      HelpRequestHandler helpRequestHandler) {
+    this.args = args;
+    this.input = input;
+    this.helpRequestHandler = helpRequestHandler;
+  }
 
-          if (index + 1 == arg.length()) {
-            continue;
-          }
-          result.add(arg.substring(index + 1));
+  private void touch(int slot) {
+    if (!isTouched[slot]) {
+      isTouched[slot] = true;
+      touchedSlots[numberOfTouchedSlots++] = slot;
+    }
+  }
 
-          continue;
-        }
+  // Clears only the slots and flags which get values
+  private void reset() {
+    for (int i = 0; i < numberOfTouchedSlots; ++i) {
+      int slot = touchedSlots[i];
+      isTouched[slot] = false;
+      values[slot] = null;
+      sliceStarts[slot] = CommandLineIterator.NO_INDEX;
+      converted[slot] = null;
+      isDefault[slot] = false;
+      if (spareValues[slot] != null) {
+        spareValues[slot].clear();
+      }
+      if (spareConverted[slot] != null) {
+        spareConverted[slot].clear();
       }
+      if (numbers[slot] != null) {
+        numbers[slot].clear();
+      }
+    }
+    numberOfTouchedSlots = 0;
 
-      result.add(arg);
+    for (int i = 0; i < numberOfTouchedFlags; ++i) {
+      flagCounts[touchedFlags[i]] = 0;
     }
+    numberOfTouchedFlags = 0;
 
+    if (valuePool != null) {
+      valuePool.clear();
+    }
+    if (offHeapValues != null) {
+      offHeapValues.clear();
+    }
+    if (parallelChecker != null) {
+      parallelChecker.clear();
+    }
+    if (asyncConsumers != null) {
+      Arrays.fill(asyncConsumers, null);
+      Arrays.fill(numberOfAsyncValues, 0);
+    }
+    numberOfArguments = 0;
+    numberOfStreamedValues = 0;
+    isHelpRequested = false;
+  }
+
+  // Parses args with the state of the previous parse reset, the returned
+  // command line is the same for every parse
+  CommandLine parse(String[] args, HelpRequestHandler helpRequestHandler) {
+    assert reusedCommandLine != null;
+
+    reset();
+    start(args, null, helpRequestHandler);
+    return getCommandLine();
+  }
+
+  private boolean isOffHeap(int slot) {
+    return offHeapValues != null && slot == values.length - 1;
+  }
+
+  private String pooled(String value) {
+    String result = valuePool.putIfAbsent(value, value);
+    return result == null ? value : result;
+  }
+
+  private boolean isSlice(int slot) {
+    return sliceStarts[slot] != CommandLineIterator.NO_INDEX;
+  }
+
+  private boolean hasValues(int slot) {
+    return values[slot] != null
+        || isSlice(slot)
+        || isOffHeap(slot) && !offHeapValues.isEmpty();
+  }
+
+  private List<String> newValues(int slot) {
+    if (spareValues == null) {
+      return new ArrayList<>();
+    }
+
+    List<String> result = spareValues[slot];
+    if (result == null) {
+      result = new ArrayList<>();
+      spareValues[slot] = result;
+    }
+    assert result.isEmpty();
     return result;
   }
 
-  private boolean handleFlag(String prefix) {
-    Flag flag = configuration.getFlagByPrefix(prefix);
+  private List<String> valuesOf(int slot) {
+    List<String> result = values[slot];
+    if (result == null) {
+      touch(slot);
+      result = newValues(slot);
+      if (isSlice(slot)) {
+        for (int index = sliceStarts[slot]; index < sliceEnds[slot]; ++index) {
+          result.add(args[index]);
+        }
+        sliceStarts[slot] = CommandLineIterator.NO_INDEX;
+      }
+      values[slot] = result;
+    }
+    return result;
+  }
 
-    if (flag == null) {
-      return false;
+  private List<String> valuesOrEmpty(int slot) {
+    if (isOffHeap(slot) && !offHeapValues.isEmpty()) {
+      return offHeapValues;
+    }
+    if (isSlice(slot)) {
+      return Arrays.asList(args).subList(sliceStarts[slot], sliceEnds[slot]);
     }
 
-    flags.add(flag.name());
-    flag.set();
-    return true;
+    List<String> result = values[slot];
+    return result == null ? Collections.emptyList() : result;
   }
 
-  private boolean handleOption(String prefix, String value) {
-    Option option = configuration.getOptionByPrefix(prefix);
-    if (option == null) {
-      return false;
+  private int numberOfValues(int slot) {
+    if (isOffHeap(slot) && !offHeapValues.isEmpty()) {
+      return offHeapValues.size();
     }
+    if (isSlice(slot)) {
+      return sliceEnds[slot] - sliceStarts[slot];
+    }
+
+    List<String> result = values[slot];
+    return result == null ? 0 : result.size();
+  }
 
-    if (!option.checker().test(value)) {
-      throw new CheckException(String.format(
+  // A value which follows the previous one in args only extends the range,
+  // the values are copied only when it's not possible
+  private void addArgumentValue(int slot, String value, int index) {
+    if (index != CommandLineIterator.NO_INDEX) {
+      if (!hasValues(slot)) {
+        touch(slot);
+        sliceStarts[slot] = index;
+        sliceEnds[slot] = index + 1;
+        return;
+      }
+
+      if (isSlice(slot) && sliceEnds[slot] == index) {
+        ++sliceEnds[slot];
+        return;
+      }
+    }
+
+    valuesOf(slot).add(value);
+  }
+
+  private void handleFlag(int index, int count) {
+    Flag flag = parser.flags().get(index);
+
+    if (flagCounts[index] == 0) {
+      touchedFlags[numberOfTouchedFlags++] = index;
+    }
+    flagCounts[index] += count;
+    if (updateConfiguration) {
+      flag.set(count);
+    }
+
+    Consumer<Flag> consumer = parser.flagConsumer(index);
+    if (Util.isEmpty(consumer)) {
+      return;
+    }
+
+    for (int i = 0; i < count; ++i) {
+      consume(values.length + index, consumer, flag, flag.name());
+    }
+  }
+
+  private void addNumber(int slot, String value, boolean isKept) {
+    NumberValues slotNumbers = numbers[slot];
+    if (slotNumbers == null) {
+      return;
+    }
+
+    if (isKept) {
+      touch(slot);
+    }
+    if (isKept ? slotNumbers.add(value) : slotNumbers.check(value)) {
+      return;
+    }
+
+    if (parallelChecker != null) {
+      // values which are read before have to be checked first to report
+      // the first failure
+      checkInParallel();
+    }
+    throw checkFailure(slot, value);
+  }
+
+  private void handleOption(int index, String value) {
+    if (valuePool != null) {
+      value = pooled(value);
+    }
+    addNumber(index, value, true);
+
+    Predicate<String> checker = parser.optionChecker(index);
+    if (parallelChecker != null) {
+      addToCheck(index, checker, value);
+    } else {
+      if (!checker.test(value)) {
+        throw checkFailure(index, value);
+      }
+      accept(index, value);
+    }
+
+    valuesOf(index).add(value);
+  }
+
+  private CheckException checkFailure(int slot, String value) {
+    int numberOfOptions = parser.options().size();
+    if (slot < numberOfOptions) {
+      return new CheckException(String.format(
           "Option <%s> can't have value <%s>",
-          option.name(),
+          parser.options().get(slot).name(),
           value));
     }
 
-    option.consumer().accept(value);
-    List<String> vals = this.values.computeIfAbsent(
-        option.name(),
-        name -> new ArrayList<>());
-    vals.add(value);
+    return new CheckException(String.format(
+        "Argument <%s> can't have value <%s>",
+        parser.arguments().get(slot - numberOfOptions).name(),
+        value));
+  }
 
-    return true;
+  private String name(int slot) {
+    int numberOfOptions = parser.options().size();
+    return slot < numberOfOptions
+        ? parser.options().get(slot).name()
+        : parser.arguments().get(slot - numberOfOptions).name();
+  }
+
+  // Async consumers are chained, so values of one option, argument or flag
+  // are consumed in the order they're read
+  private <T> void consume(int index, Consumer<T> consumer, T value, String name) {
+    if (!AsyncConsumer.isAsync(consumer)) {
+      consumer.accept(value);
+      return;
+    }
+
+    Runnable task = () -> {
+      try {
+        consumer.accept(value);
+      } catch (RuntimeException e) {
+        throw new ConsumerException(
+            String.format("Consumer of <%s> failed on value <%s>", name, value),
+            e);
+      }
+    };
+    if (numberOfAsyncValues[index] == MAX_ASYNC_VALUES) {
+      await(asyncConsumers[index]);
+      asyncConsumers[index] = null;
+      numberOfAsyncValues[index] = 0;
+    }
+
+    ++numberOfAsyncValues[index];
+    CompletableFuture<Void> previous = asyncConsumers[index];
+    asyncConsumers[index] = previous == null
+        ? CompletableFuture.runAsync(task, parser.asyncConsumerExecutor())
+        : previous.thenRunAsync(task, parser.asyncConsumerExecutor());
+  }
+
+  // Throws the failure of a consumer as it is
+  private static void await(CompletableFuture<Void> consumers) {
+    try {
+      consumers.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof CommandLineException) {
+        throw (CommandLineException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private CompletableFuture<Void> asyncConsumersFinished() {
+    if (asyncConsumers == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    return CompletableFuture.allOf(Arrays.stream(asyncConsumers)
+        .filter(consumers -> consumers != null)
+        .toArray(CompletableFuture[]::new));
+  }
+
+  private Consumer<String> consumer(int slot) {
+    int numberOfOptions = parser.options().size();
+    return slot < numberOfOptions
+        ? parser.optionConsumer(slot)
+        : parser.argumentConsumer(slot - numberOfOptions);
+  }
+
+  private Object convert(int slot, Conversion<?> conversion, String value) {
+    try {
+      return conversion.convert(value);
+    } catch (IllegalArgumentException e) {
+      CheckException failure = checkFailure(slot, value);
+      failure.initCause(e);
+      throw failure;
+    }
   }
 
-  private boolean handleArgument(String arg) {
-    List<Argument> arguments = configuration.arguments();
+  // Only the first value of the last argument is kept when values are
+  // streamed, none is kept when they're off the heap
+  private boolean isConvertedValueKept(int slot) {
+    if (parser.arguments().isEmpty() || slot != values.length - 1) {
+      return true;
+    }
+
+    switch (parser.remainderMode()) {
+      case STREAM:
+        return converted[slot] == null;
+      case OFF_HEAP:
+        return false;
+      default:
+        return true;
+    }
+  }
+
+  private List<Object> convertedOrEmpty(int slot) {
+    if (isOffHeap(slot) && !offHeapValues.isEmpty() && parser.conversion(slot) != null) {
+      // converted values are read through the values off the heap
+      return new ConvertedValues(parser.conversion(slot), offHeapValues);
+    }
+
+    List<Object> result = converted[slot];
+    return result == null ? Collections.emptyList() : result;
+  }
+
+  private void addConverted(int slot, Object value) {
+    List<Object> result = converted[slot];
+    if (result == null) {
+      touch(slot);
+      if (spareConverted == null) {
+        result = new ArrayList<>();
+      } else {
+        if (spareConverted[slot] == null) {
+          spareConverted[slot] = new ArrayList<>();
+        }
+        result = spareConverted[slot];
+      }
+      converted[slot] = result;
+    }
+    result.add(value);
+  }
+
+  // Passes a checked value to the consumers, a converted value is passed
+  // only if the value is converted successfully
+  private void accept(int slot, String value) {
+    Conversion<?> conversion = parser.conversion(slot);
+    if (conversion == null) {
+      consumeValue(slot, value);
+      return;
+    }
+
+    Object convertedValue = convert(slot, conversion, value);
+    if (isConvertedValueKept(slot)) {
+      addConverted(slot, convertedValue);
+    }
+    consumeValue(slot, value);
+    consume(slot, conversion.consumer(), convertedValue, name(slot));
+  }
+
+  // A number consumer gets the number the value is just parsed into by the
+  // values of the slot. Values checked in parallel are consumed after others
+  // are parsed, so the consumer parses them itself.
+  private void consumeValue(int slot, String value) {
+    Consumer<String> consumer = consumer(slot);
+    if (consumer instanceof NumberConsumer
+        && parallelChecker == null
+        && ((NumberConsumer) consumer).acceptLast(numbers[slot])) {
+      return;
+    }
+    consume(slot, consumer, value, name(slot));
+  }
+
+  private void addToCheck(int slot, Predicate<String> checker, String value) {
+    if (parallelChecker.add(slot, checker, value)) {
+      checkInParallel();
+    }
+  }
+
+  // Values are passed to consumers in the same order as they're read, the
+  // ones after a failed value aren't passed at all
+  private void checkInParallel() {
+    int failure = parallelChecker.check();
+    int end = failure == ParallelChecker.NO_FAILURE ? parallelChecker.size() : failure;
+    for (int i = 0; i < end; ++i) {
+      accept(parallelChecker.slot(i), parallelChecker.value(i));
+    }
+
+    if (failure != ParallelChecker.NO_FAILURE) {
+      Throwable error = parallelChecker.error();
+      if (error instanceof RuntimeException) {
+        throw (RuntimeException) error;
+      }
+      if (error instanceof Error) {
+        throw (Error) error;
+      }
+      throw checkFailure(parallelChecker.slot(failure), parallelChecker.value(failure));
+    }
+
+    parallelChecker.clear();
+  }
+
+  private boolean handleArgument(String arg, int index) {
+    List<Argument> arguments = parser.arguments();
     if (arguments.isEmpty()) {
       return false;
     }
 
-    boolean isRemainder = true;
-    if (argumentIterator.hasNext()) {
-      argument = argumentIterator.next();
-      isRemainder = false;
+    boolean isRemainder = numberOfArguments >= arguments.size();
+    int position = isRemainder ? arguments.size() - 1 : numberOfArguments++;
+    Argument argument = arguments.get(position);
+    int slot = parser.argumentSlot(position);
+    boolean isStreamed = isRemainder && parser.remainderMode() == RemainderMode.STREAM;
+    if (isStreamed) {
+      // the value is rejected before the consumer gets it, the first value of
+      // the last argument is kept so it's not counted
+      checkLastArgumentSize(numberOfStreamedValues + 2);
+    }
+    addNumber(slot, arg, !isStreamed);
+
+    Predicate<String> checker = parser.argumentChecker(position);
+    if (parallelChecker != null) {
+      addToCheck(slot, checker, arg);
+    } else {
+      if (!checker.test(arg)) {
+        throw checkFailure(slot, arg);
+      }
+      accept(slot, arg);
     }
 
-    String argName = argument.name();
-    if (!argument.checker().test(arg)) {
-      throw new CheckException(String.format("Argument <%s> can't have value <%s>", argName, arg));
+    if (isStreamed) {
+      ++numberOfStreamedValues;
+      return true;
     }
-    argument.consumer().accept(arg);
-    List<String> vals = this.values.computeIfAbsent(argument.name(), name -> new ArrayList<>());
-    vals.add(arg);
 
-    if (isRemainder) {
-      argumentRemainder.add(arg);
+    String value = arg;
+    if (isOffHeap(slot)) {
+      offHeapValues.append(value);
+    } else if (valuePool == null) {
+      addArgumentValue(slot, value, index);
     } else {
-      argument.setValue(arg);
+      // a slice of args would keep equal values, so pooled ones are copied
+      value = pooled(arg);
+      addArgumentValue(slot, value, CommandLineIterator.NO_INDEX);
+    }
+
+    if (updateConfiguration && !isRemainder) {
+      argument.setValue(value);
     }
 
     return true;
   }
 
-  private void checkSizeConstraints() {
-    List<Argument> arguments = configuration.arguments();
-    for (Argument arg : arguments) {
-      List<String> vals = this.values.getOrDefault(
-          arg.name(),
-          Collections.emptyList());
+  private void checkLastArgumentSize(int numberOfValues) {
+    if (numberOfValues > parser.maxLastArgumentSize()) {
+      List<Argument> arguments = parser.arguments();
+      throw new SizeViolationException(
+          String.format(
+              "%d is too many values(max number is %d) for the last argument <%s>",
+              numberOfValues,
+              parser.maxLastArgumentSize(),
+              arguments.get(arguments.size() - 1).name()));
+    }
+  }
 
-      if (arg.isRequired() && vals.isEmpty()) {
+  private void checkSizeConstraints() {
+    List<Argument> arguments = parser.arguments();
+    for (int position = 0; position < arguments.size(); ++position) {
+      if (parser.argumentIsRequired(position)
+          && numberOfValues(parser.argumentSlot(position)) == 0) {
         throw new SizeViolationException(
             String.format(
                 "Argument <%s> is required, please provide value for it",
-                arg.name()));
+                arguments.get(position).name()));
       }
     }
 
     if (!arguments.isEmpty()) {
-      Argument lastArgument = arguments.get(arguments.size() - 1);
-      int lastArgumentNumValues = values.getOrDefault(
-          lastArgument.name(),
-          Collections.emptyList()).size();
-
-      if (lastArgumentNumValues > configuration.maxLastArgumentSize()) {
-        throw new SizeViolationException(
-            String.format(
-                "%d is too many values(max number is %d) for the last argument <%s>",
-                lastArgumentNumValues,
-                configuration.maxLastArgumentSize(),
-                lastArgument.name()));
-      }
+      int lastPosition = arguments.size() - 1;
+      checkLastArgumentSize(
+          numberOfValues(parser.argumentSlot(lastPosition)) + numberOfStreamedValues);
     }
 
-    for (Option option : configuration.options()) {
-      List<String> vals = values.getOrDefault(option.name(), Collections.emptyList());
-      int size = vals.size();
+    List<Option> options = parser.options();
+    for (int index = 0; index < options.size(); ++index) {
+      int size = numberOfValues(index);
 
-      if (vals.isEmpty() && option.isRequired()) {
+      if (size == 0 && parser.optionIsRequired(index)) {
         throw new SizeViolationException(
             String.format(
                 "Option <%s> is required, please provide value for it",
-                option.name()));
+                options.get(index).name()));
       }
 
-      if (vals.size() > option.maxNumberOfValues()) {
+      if (size > parser.optionMaxNumberOfValues(index)) {
         throw new SizeViolationException(
             String.format(
                 "%d is too many values(max number is %d) for option <%s>",
                 size,
-                option.maxNumberOfValues(),
-                option.name()));
+                parser.optionMaxNumberOfValues(index),
+                options.get(index).name()));
       }
     }
 
-    for (Flag flag : configuration.flags()) {
-      if (flag.isRequired() && !flag.isSet()) {
+    List<Flag> flags = parser.flags();
+    for (int index = 0; index < flags.size(); ++index) {
+      if (parser.flagIsRequired(index) && flagCounts[index] == 0) {
         throw new SizeViolationException(
-            String.format("Flag <%s> is required", flag.name()));
+            String.format("Flag <%s> is required", flags.get(index).name()));
       }
 
-      if (flag.numberOfFlags() > flag.maxNumberOfValues()) {
+      if (flagCounts[index] > parser.flagMaxNumberOfValues(index)) {
         throw new SizeViolationException(
             String.format(
                 "There're too many flags <%s> - %d, max number of values is %d",
-                flag.name(),
-                flag.numberOfFlags(),
-                flag.maxNumberOfValues()));
+                flags.get(index).name(),
+                flagCounts[index],
+                parser.flagMaxNumberOfValues(index)));
+      }
+    }
+  }
+
+  private void convertDefaultValues(int slot, List<String> defaultValues) {
+    Conversion<?> conversion = parser.conversion(slot);
+    for (int i = 0; i < defaultValues.size(); ++i) {
+      String value = defaultValues.get(i);
+      addNumber(slot, value, true);
+      if (conversion != null) {
+        addConverted(slot, convert(slot, conversion, value));
       }
     }
   }
 
   private void addDefaultValues() {
-    for (Option option : configuration.options()) {
-      List<String> defaultValues = option.defaultValues();
-      if (defaultValues.isEmpty()) {
-        continue;
+    List<Option> options = parser.options();
+    for (int index = 0; index < options.size(); ++index) {
+      List<String> defaultValues = parser.optionDefaultValues(index);
+      if (!defaultValues.isEmpty() && !hasValues(index)) {
+        touch(index);
+        values[index] = defaultValues;
+        isDefault[index] = true;
+        convertDefaultValues(index, defaultValues);
       }
+    }
 
-      if (values.containsKey(option.name())) {
-        continue;
+    List<Argument> arguments = parser.arguments();
+    for (int position = numberOfArguments; position < arguments.size(); ++position) {
+      List<String> defaultValues = parser.argumentDefaultValues(position);
+      int slot = parser.argumentSlot(position);
+
+      if (!defaultValues.isEmpty() && !hasValues(slot)) {
+        touch(slot);
+        values[slot] = defaultValues;
+        isDefault[slot] = true;
+        convertDefaultValues(slot, defaultValues);
+        if (updateConfiguration) {
+          Argument argument = arguments.get(position);
+          if (defaultValues.size() > 1) {
+            argument.setValues(new ValuesImpl(defaultValues));
+          } else {
+            argument.setValue(defaultValues.get(0));
+          }
+        }
       }
+    }
+  }
 
-      String name = option.name();
-      values.put(name, defaultValues);
-      option.setValues(new ValuesImpl(defaultValues));
+  private void updateConfiguration() {
+    List<Option> options = parser.options();
+    for (int index = 0; index < options.size(); ++index) {
+      Option option = options.get(index);
+      option.setValues(new ValuesImpl(valuesOrEmpty(index)));
+      option.setProvided(!isDefault[index] && hasValues(index));
+      option.setNumbers(numbers[index]);
+      if (option.conversion() != null) {
+        option.conversion().setValues(convertedOrEmpty(index));
+      }
     }
 
-    while (argumentIterator.hasNext()) {
-      argument = argumentIterator.next();
-      List<String> defaultValues = argument.defaultValues();
+    List<Argument> arguments = parser.arguments();
+    for (int position = 0; position < arguments.size(); ++position) {
+      Argument argument = arguments.get(position);
+      int slot = parser.argumentSlot(position);
+      argument.setNumbers(numbers[slot]);
+      if (argument.conversion() != null) {
+        argument.conversion().setValues(convertedOrEmpty(slot));
+      }
+    }
 
-      if (!defaultValues.isEmpty() && !values.containsKey(argument.name())) {
-        values.put(argument.name(), defaultValues);
-        if (defaultValues.size() == 1) {
-          argument.setValue(defaultValues.get(0));
-        } else {
-          argument.setValue(defaultValues.get(0));
-          argument.setRemainder(new ValuesImpl(defaultValues.subList(1, defaultValues.size())));
-        }
+    if (numberOfArguments > 0) {
+      int lastPosition = numberOfArguments - 1;
+      List<String> lastValues = valuesOrEmpty(parser.argumentSlot(lastPosition));
+      if (lastValues.size() > 1) {
+        arguments.get(lastPosition).setValues(new ValuesImpl(lastValues));
       }
     }
   }
 
+  private void iterate() {
+    if (updateConfiguration) {
+      parser.flags().forEach(Flag::reset);
+    }
+
+    // the handler is called before any consumer, so a help request doesn't
+    // have side effects, and before any error, so it takes precedence over
+    // errors. Help requests in argument files are found only while they're
+    // read.
+    isHelpRequested = CommandLineIterator.containsHelpRequest(args);
+    if (isHelpRequested) {
+      helpRequestHandler.handleHelpRequest(parser.configuration(), args);
+    }
+
+    try {
+      commandLineIterator.iterate(args, input);
+      if (parallelChecker != null) {
+        checkInParallel();
+      }
+    } finally {
+      if (!isHelpRequested && commandLineIterator.isHelpRequested()) {
+        isHelpRequested = true;
+        helpRequestHandler.handleHelpRequest(parser.configuration(), args);
+      }
+    }
+
+    addDefaultValues();
+    if (updateConfiguration) {
+      updateConfiguration();
+    }
+
+    checkSizeConstraints();
+  }
+
+  boolean isHelpRequested() {
+    return isHelpRequested;
+  }
+
+  // Returns when async consumers are finished, the first failure of them is
+  // thrown if the args are parsed successfully
   CommandLine getCommandLine() {
-    parse();
+    if (asyncConsumers == null) {
+      return parseCommandLine();
+    }
+
+    CommandLine commandLine;
+    try {
+      commandLine = parseCommandLine();
+    } catch (RuntimeException e) {
+      // nothing is consumed after the parse is finished
+      asyncConsumersFinished().handle((ignored, failure) -> null).join();
+      throw e;
+    }
+
+    await(asyncConsumersFinished());
+    return commandLine;
+  }
+
+  // Completes when async consumers are finished, a parse error is reported
+  // after that too
+  CompletableFuture<CommandLine> getCommandLineAsync() {
+    CommandLine commandLine;
+    try {
+      commandLine = parseCommandLine();
+    } catch (CommandLineException e) {
+      return asyncConsumersFinished().<CommandLine>handle((ignored, failure) -> {
+        throw e;
+      });
+    }
 
-    Map<String, Values> commandLineValues = new HashMap<>();
-    values.forEach((name, v) -> commandLineValues.put(name, new ValuesImpl(v)));
+    return asyncConsumersFinished().thenApply(ignored -> commandLine);
+  }
 
-    Set<String> allNames = configuration.arguments()
-        .stream()
-        .map(Argument::name)
-        .collect(Collectors.toSet());
+  private CommandLine parseCommandLine() {
+    iterate();
 
-    allNames.addAll(configuration.options()
-        .stream()
-        .map(Option::name)
-        .collect(Collectors.toSet()));
+    CommandLine commandLine;
+    if (reusedCommandLine == null) {
+      commandLine = newCommandLine();
+    } else {
+      commandLine = reusedCommandLine;
+      commandLine.setNumberOfStreamedValues(numberOfStreamedValues);
+    }
+
+    List<Validator> validators = parser.validators();
+    for (int i = 0; i < validators.size(); ++i) {
+      validators.get(i).validate(commandLine);
+    }
+    return commandLine;
+  }
 
-    Set<String> flagNames = configuration.flags().stream()
-        .map(Flag::name).collect(Collectors.toSet());
+  private CommandLine newCommandLine() {
+    Values[] commandLineValues = new Values[values.length];
+    List<?>[] convertedValues = new List<?>[values.length];
+    for (int slot = 0; slot < values.length; ++slot) {
+      commandLineValues[slot] = hasValues(slot)
+          ? new ValuesImpl(valuesOrEmpty(slot))
+          : ValuesImpl.empty();
+      convertedValues[slot] = Collections.unmodifiableList(convertedOrEmpty(slot));
+    }
 
     return new CommandLine(
-        allNames,
-        flagNames,
+        parser,
         commandLineValues,
-        flags);
+        numbers,
+        convertedValues,
+        flagCounts,
+        numberOfStreamedValues,
+        isDefault);
   }
 
-  void parse() {
-    CommandLineIterator commandLineIterator = new CommandLineIterator(
-        this::handleArgument,
-        configuration::isPrefixRegistered,
-        this::handleOption,
-        this::handleFlag);
+  // Values of a slot of the reused command line, they're read from the
+  // state of the last parse
+  private final class SlotValues extends AbstractList<String> implements RandomAccess {
 
-    commandLineIterator.iterate(args);
+    private final int slot;
 
-    configuration.options().forEach(option ->
-        option.setValues(
-            new ValuesImpl(
-                values.getOrDefault(
-                    option.name(),
-                    Collections.emptyList())))
-    );
+    SlotValues(int slot) {
+      this.slot = slot;
+    }
 
-    if (!argumentRemainder.isEmpty()) {
-      argument.setRemainder(new ValuesImpl(argumentRemainder));
+    @Override
+    public String get(int index) {
+      if (isOffHeap(slot) && !offHeapValues.isEmpty()) {
+        return offHeapValues.get(index);
+      }
+      if (isSlice(slot)) {
+        if (index < 0 || index >= sliceEnds[slot] - sliceStarts[slot]) {
+          throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        return args[sliceStarts[slot] + index];
+      }
+
+      List<String> result = values[slot];
+      if (result == null) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: 0");
+      }
+      return result.get(index);
     }
 
-    addDefaultValues();
-    checkSizeConstraints();
+    @Override
+    public int size() {
+      return numberOfValues(slot);
+    }
+  }
+
+  private final class SlotConverted extends AbstractList<Object> implements RandomAccess {
 
-    configuration.checkers().forEach(checker ->
-        checker.validate(
-            configuration.arguments(),
-            configuration.options(),
-            configuration.flags()));
+    private final int slot;
+
+    SlotConverted(int slot) {
+      this.slot = slot;
+    }
+
+    @Override
+    public Object get(int index) {
+      return convertedOrEmpty(slot).get(index);
+    }
+
+    @Override
+    public int size() {
+      return convertedOrEmpty(slot).size();
+    }
   }
 }
@@ -0,0 +1,482 @@
+package io.github.elkin.commandline;
+
+import io.github.elkin.commandline.exception.CommandLineException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+public final class CompiledParser {
+
+  private static final HelpRequestHandler IGNORE_HELP_REQUEST_HANDLER =
+      (configuration, args) -> {
+      };
+
+  private final CommandLineConfiguration configuration;
+  private final List<Argument> arguments;
+  private final List<Option> options;
+  private final List<Flag> flags;
+  private final List<Validator> validators;
+  private final Validator configurationValidator;
+  private final PrefixIndex prefixIndex;
+  private final Map<String, Integer> valueIndexByName;
+  private final Map<String, Integer> flagIndexByName;
+  private final Set<String> names;
+  private final Set<String> flagNames;
+  private final int maxLastArgumentSize;
+  private final ArgumentSeparator argumentFileSeparator;
+  private final ArgumentSeparator standardInputSeparator;
+  private final RemainderMode remainderMode;
+  private final Executor checkingExecutor;
+  private final Executor asyncConsumerExecutor;
+  private final ParseCache parseCache;
+  private final ThreadLocal<ParseContext> threadLocalContext;
+  private final boolean isValueDeduplicationEnabled;
+
+  private final ValueType[] valueTypes;
+  private final Conversion<?>[] conversions;
+
+  private final Predicate<String>[] optionCheckers;
+  private final Consumer<String>[] optionConsumers;
+  private final List<String>[] optionDefaultValues;
+  private final int[] optionMaxNumberOfValues;
+  private final boolean[] optionIsRequired;
+
+  private final Consumer<Flag>[] flagConsumers;
+  private final int[] flagMaxNumberOfValues;
+  private final boolean[] flagIsRequired;
+
+  private final Predicate<String>[] argumentCheckers;
+  private final Consumer<String>[] argumentConsumers;
+  private final List<String>[] argumentDefaultValues;
+  private final boolean[] argumentIsRequired;
+
+  @SuppressWarnings("unchecked")
+  CompiledParser(CommandLineConfiguration configuration) {
+    assert configuration != null;
+
+    this.configuration = configuration;
+    arguments = Collections.unmodifiableList(new ArrayList<>(configuration.arguments()));
+    options = Collections.unmodifiableList(new ArrayList<>(configuration.options()));
+    flags = Collections.unmodifiableList(new ArrayList<>(configuration.flags()));
+    validators = Collections.unmodifiableList(new ArrayList<>(configuration.checkers()));
+    configurationValidator = validators.stream()
+        .filter(CompiledParser::readsConfiguration)
+        .findFirst()
+        .orElse(null);
+    prefixIndex = new PrefixIndex(configuration.optionByPrefix(), configuration.flagByPrefix());
+    maxLastArgumentSize = configuration.maxLastArgumentSize();
+    argumentFileSeparator = configuration.argumentFileSeparator().orElse(null);
+    standardInputSeparator = configuration.standardInputSeparator().orElse(null);
+    remainderMode = configuration.remainderMode();
+    checkingExecutor = configuration.checkingExecutor().orElse(null);
+    isValueDeduplicationEnabled = configuration.isValueDeduplicationEnabled();
+
+    int numberOfOptions = options.size();
+    valueTypes = new ValueType[numberOfValueSlots()];
+    conversions = new Conversion<?>[numberOfValueSlots()];
+    optionCheckers = (Predicate<String>[]) new Predicate<?>[numberOfOptions];
+    optionConsumers = (Consumer<String>[]) new Consumer<?>[numberOfOptions];
+    optionDefaultValues = (List<String>[]) new List<?>[numberOfOptions];
+    optionMaxNumberOfValues = new int[numberOfOptions];
+    optionIsRequired = new boolean[numberOfOptions];
+
+    Map<String, Integer> valueIndices = new HashMap<>();
+    for (int i = 0; i < numberOfOptions; ++i) {
+      Option option = options.get(i);
+      assert option.index() == i;
+
+      optionCheckers[i] = option.checker();
+      optionConsumers[i] = option.consumer();
+      optionDefaultValues[i] = Collections.unmodifiableList(
+          new ArrayList<>(option.defaultValues()));
+      optionMaxNumberOfValues[i] = option.maxNumberOfValues();
+      optionIsRequired[i] = option.isRequired();
+      valueTypes[i] = option.valueType();
+      conversions[i] = copy(option.conversion());
+      valueIndices.put(option.name(), i);
+    }
+
+    int numberOfArguments = arguments.size();
+    argumentCheckers = (Predicate<String>[]) new Predicate<?>[numberOfArguments];
+    argumentConsumers = (Consumer<String>[]) new Consumer<?>[numberOfArguments];
+    argumentDefaultValues = (List<String>[]) new List<?>[numberOfArguments];
+    argumentIsRequired = new boolean[numberOfArguments];
+
+    for (int i = 0; i < numberOfArguments; ++i) {
+      Argument argument = arguments.get(i);
+      assert argument.position() == i;
+
+      argumentCheckers[i] = argument.checker();
+      argumentConsumers[i] = argument.consumer();
+      argumentDefaultValues[i] = Collections.unmodifiableList(
+          new ArrayList<>(argument.defaultValues()));
+      argumentIsRequired[i] = argument.isRequired();
+      valueTypes[numberOfOptions + i] = argument.valueType();
+      conversions[numberOfOptions + i] = copy(argument.conversion());
+      valueIndices.put(argument.name(), numberOfOptions + i);
+    }
+
+    int numberOfFlags = flags.size();
+    flagConsumers = (Consumer<Flag>[]) new Consumer<?>[numberOfFlags];
+    flagMaxNumberOfValues = new int[numberOfFlags];
+    flagIsRequired = new boolean[numberOfFlags];
+
+    Map<String, Integer> flagIndices = new HashMap<>();
+    for (int i = 0; i < numberOfFlags; ++i) {
+      Flag flag = flags.get(i);
+      assert flag.index() == i;
+
+      flagConsumers[i] = flag.consumer();
+      flagMaxNumberOfValues[i] = flag.maxNumberOfValues();
+      flagIsRequired[i] = flag.isRequired();
+      flagIndices.put(flag.name(), i);
+    }
+
+    // null if every consumer is run while args are parsed
+    asyncConsumerExecutor = hasAsyncConsumers()
+        ? configuration.asyncConsumerExecutor()
+        : null;
+
+    valueIndexByName = valueIndices;
+    flagIndexByName = flagIndices;
+    names = Collections.unmodifiableSet(new HashSet<>(valueIndices.keySet()));
+    flagNames = Collections.unmodifiableSet(new HashSet<>(flagIndices.keySet()));
+
+    // consumers have to get values of every parse and arguments from files
+    // or the input can differ for the same args
+    parseCache = configuration.parseCacheSize() > 0
+        && !hasConsumers()
+        && argumentFileSeparator == null
+        && standardInputSeparator == null
+        ? new ParseCache(configuration.parseCacheSize())
+        : null;
+    threadLocalContext = ThreadLocal.withInitial(this::newContext);
+  }
+
+  private boolean hasConsumers() {
+    for (int slot = 0; slot < conversions.length; ++slot) {
+      if (conversions[slot] != null && conversions[slot].hasConsumer()) {
+        return true;
+      }
+    }
+
+    return Arrays.stream(optionConsumers).anyMatch(consumer -> !Util.isEmpty(consumer))
+        || Arrays.stream(argumentConsumers).anyMatch(consumer -> !Util.isEmpty(consumer))
+        || Arrays.stream(flagConsumers).anyMatch(consumer -> !Util.isEmpty(consumer));
+  }
+
+  private boolean hasAsyncConsumers() {
+    for (int slot = 0; slot < conversions.length; ++slot) {
+      if (conversions[slot] != null && AsyncConsumer.isAsync(conversions[slot].consumer())) {
+        return true;
+      }
+    }
+
+    return Arrays.stream(optionConsumers).anyMatch(AsyncConsumer::isAsync)
+        || Arrays.stream(argumentConsumers).anyMatch(AsyncConsumer::isAsync)
+        || Arrays.stream(flagConsumers).anyMatch(AsyncConsumer::isAsync);
+  }
+
+  private static Conversion<?> copy(Conversion<?> conversion) {
+    return conversion == null ? null : conversion.copy();
+  }
+
+  CommandLine parse(String[] args,
+      HelpRequestHandler helpRequestHandler,
+      ExceptionHandler exceptionHandler,
+      boolean updateConfiguration) {
+    return parse(args, null, helpRequestHandler, exceptionHandler, updateConfiguration);
+  }
+
+  CommandLine parse(String[] args,
+      ChannelArguments input,
+      HelpRequestHandler helpRequestHandler,
+      ExceptionHandler exceptionHandler,
+      boolean updateConfiguration) {
+    Objects.requireNonNull(args);
+    Objects.requireNonNull(helpRequestHandler);
+    Objects.requireNonNull(exceptionHandler);
+
+    try {
+      if (input == null && !updateConfiguration) {
+        return parse(args, helpRequestHandler);
+      }
+
+      CommandLineParser parser = new CommandLineParser(
+          this,
+          args.clone(),
+          input,
+          helpRequestHandler,
+          updateConfiguration);
+      return parser.getCommandLine();
+    } catch (CommandLineException e) {
+      exceptionHandler.handleException(e, configuration, args);
+    }
+
+    // exception handler is supposed to either exit or rethrow
+    return null;
+  }
+
+  // Values of a command line are views over the args it's parsed from, so
+  // every public parse copies the args. The command line, and the key of it
+  // in the cache, doesn't change when the caller reuses the array. Only
+  // ParseContext parses the args of the caller.
+  private CommandLine parse(String[] args, HelpRequestHandler helpRequestHandler) {
+    if (parseCache != null) {
+      CommandLine result = parseCache.get(args);
+      if (result != null) {
+        return result;
+      }
+    }
+
+    String[] copy = args.clone();
+    CommandLineParser parser = new CommandLineParser(this, copy, null, helpRequestHandler, false);
+    CommandLine result = parser.getCommandLine();
+    if (parseCache != null && !parser.isHelpRequested()) {
+      parseCache.put(copy, result);
+    }
+    return result;
+  }
+
+  public CommandLine parse(String[] args) {
+    Objects.requireNonNull(args);
+
+    return parse(args, IGNORE_HELP_REQUEST_HANDLER);
+  }
+
+  // Arguments read from the input are positional ones, they follow all the
+  // positional arguments from args
+  public CommandLine parse(String[] args,
+      ReadableByteChannel input,
+      ArgumentSeparator separator) {
+    Objects.requireNonNull(args);
+    Objects.requireNonNull(input);
+    Objects.requireNonNull(separator);
+
+    CommandLineParser parser = new CommandLineParser(
+        this,
+        args.clone(),
+        new ChannelArguments(input, separator),
+        IGNORE_HELP_REQUEST_HANDLER,
+        false);
+    return parser.getCommandLine();
+  }
+
+  public CommandLine parse(String[] args,
+      HelpRequestHandler helpRequestHandler,
+      ExceptionHandler exceptionHandler) {
+    return parse(args, helpRequestHandler, exceptionHandler, false);
+  }
+
+  // Completes when async consumers of the values are finished, parse errors
+  // and failures of consumers complete it with a CommandLineException. Other
+  // parse methods wait for async consumers before they return.
+  public CompletableFuture<CommandLine> parseAsync(String[] args) {
+    Objects.requireNonNull(args);
+
+    CommandLineParser parser = new CommandLineParser(
+        this,
+        args.clone(),
+        null,
+        IGNORE_HELP_REQUEST_HANDLER,
+        false);
+    return parser.getCommandLineAsync();
+  }
+
+  // Context which isn't shared between threads, parse cache isn't used by it
+  public ParseContext newContext() {
+    return new ParseContext(this);
+  }
+
+  // Context of the current thread, command lines returned by it are
+  // overwritten by the next parse in the thread
+  public ParseContext threadLocalContext() {
+    return threadLocalContext.get();
+  }
+
+  public BatchParser newBatchParser() {
+    return new BatchParser(this);
+  }
+
+  public boolean isParseCacheUsed() {
+    return parseCache != null;
+  }
+
+  public long parseCacheHits() {
+    return parseCache == null ? 0 : parseCache.hits();
+  }
+
+  public long parseCacheMisses() {
+    return parseCache == null ? 0 : parseCache.misses();
+  }
+
+  public CommandLineConfiguration configuration() {
+    return configuration;
+  }
+
+  List<Argument> arguments() {
+    return arguments;
+  }
+
+  List<Option> options() {
+    return options;
+  }
+
+  List<Flag> flags() {
+    return flags;
+  }
+
+  // null if there're no async consumers
+  Executor asyncConsumerExecutor() {
+    return asyncConsumerExecutor;
+  }
+
+  List<Validator> validators() {
+    return validators;
+  }
+
+  // A validator which doesn't implement validate(CommandLine) reads values
+  // of options and flags of the configuration
+  private static boolean readsConfiguration(Validator validator) {
+    try {
+      return validator.getClass()
+          .getMethod("validate", CommandLine.class)
+          .getDeclaringClass() == Validator.class;
+    } catch (NoSuchMethodException e) {
+      // every validator has the default method
+      throw new AssertionError(e);
+    }
+  }
+
+  // Only CommandLine.getCommandLine() sets values to options and flags of
+  // the configuration, other parses would pass stale values to validators
+  // which read them
+  void checkValidatorsReadCommandLine() {
+    if (configurationValidator != null) {
+      throw new IllegalStateException(String.format(
+          "Validator %s reads options and flags of the configuration, which get values only "
+              + "in CommandLine.getCommandLine(), it has to implement validate(CommandLine)",
+          configurationValidator));
+    }
+  }
+
+  PrefixIndex prefixIndex() {
+    return prefixIndex;
+  }
+
+  Set<String> names() {
+    return names;
+  }
+
+  Set<String> flagNames() {
+    return flagNames;
+  }
+
+  Integer valueIndex(String name) {
+    return valueIndexByName.get(name);
+  }
+
+  Integer flagIndex(String name) {
+    return flagIndexByName.get(name);
+  }
+
+  int numberOfValueSlots() {
+    return options.size() + arguments.size();
+  }
+
+  int argumentSlot(int position) {
+    return options.size() + position;
+  }
+
+  ValueType valueType(int slot) {
+    return valueTypes[slot];
+  }
+
+  // Returns null if the values of the slot aren't converted
+  Conversion<?> conversion(int slot) {
+    return conversions[slot];
+  }
+
+  int maxLastArgumentSize() {
+    return maxLastArgumentSize;
+  }
+
+  RemainderMode remainderMode() {
+    return remainderMode;
+  }
+
+  ArgumentSeparator argumentFileSeparator() {
+    return argumentFileSeparator;
+  }
+
+  Executor checkingExecutor() {
+    return checkingExecutor;
+  }
+
+  boolean isValueDeduplicationEnabled() {
+    return isValueDeduplicationEnabled;
+  }
+
+  ArgumentSeparator standardInputSeparator() {
+    return standardInputSeparator;
+  }
+
+  Predicate<String> optionChecker(int index) {
+    return optionCheckers[index];
+  }
+
+  Consumer<String> optionConsumer(int index) {
+    return optionConsumers[index];
+  }
+
+  List<String> optionDefaultValues(int index) {
+    return optionDefaultValues[index];
+  }
+
+  int optionMaxNumberOfValues(int index) {
+    return optionMaxNumberOfValues[index];
+  }
+
+  boolean optionIsRequired(int index) {
+    return optionIsRequired[index];
+  }
+
+  Consumer<Flag> flagConsumer(int index) {
+    return flagConsumers[index];
+  }
+
+  int flagMaxNumberOfValues(int index) {
+    return flagMaxNumberOfValues[index];
+  }
+
+  boolean flagIsRequired(int index) {
+    return flagIsRequired[index];
+  }
+
+  Predicate<String> argumentChecker(int position) {
+    return argumentCheckers[position];
+  }
+
+  Consumer<String> argumentConsumer(int position) {
+    return argumentConsumers[position];
+  }
+
+  List<String> argumentDefaultValues(int position) {
+    return argumentDefaultValues[position];
+  }
+
+  boolean argumentIsRequired(int position) {
+    return argumentIsRequired[position];
+  }
+}
@@ -0,0 +1,80 @@
+package io.github.elkin.commandline;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Converter of a typed option or argument together with the checker and the
+// consumer of converted values
+final class Conversion<T> {
+
+  private final Converter<? extends T> converter;
+  private Predicate<? super T> checker;
+  private Consumer<? super T> consumer;
+  private List<T> values;
+
+  Conversion(Converter<? extends T> converter) {
+    assert converter != null;
+
+    this.converter = converter;
+    checker = value -> true;
+    consumer = Util.empty();
+    values = Collections.emptyList();
+  }
+
+  private Conversion(Conversion<T> conversion) {
+    converter = conversion.converter;
+    checker = conversion.checker;
+    consumer = conversion.consumer;
+    values = Collections.emptyList();
+  }
+
+  // Returns a copy which doesn't change when the checker or consumer is set
+  Conversion<T> copy() {
+    return new Conversion<>(this);
+  }
+
+  boolean hasConsumer() {
+    return !Util.isEmpty(consumer);
+  }
+
+  @SuppressWarnings("unchecked")
+  Consumer<Object> consumer() {
+    return (Consumer<Object>) consumer;
+  }
+
+  void setChecker(Predicate<? super T> checker) {
+    this.checker = Objects.requireNonNull(checker);
+  }
+
+  void setConsumer(Consumer<? super T> consumer) {
+    this.consumer = Objects.requireNonNull(consumer);
+  }
+
+  // Throws IllegalArgumentException if the value can't be converted or the
+  // converted value fails the check
+  T convert(String value) {
+    T result = Objects.requireNonNull(converter.convert(value), "Converter returned null");
+    if (!checker.test(result)) {
+      throw new IllegalArgumentException("Converted value fails the check: " + result);
+    }
+    return result;
+  }
+
+  // Converts a value which passed the check before, e.g. one read from a
+  // snapshot
+  T reconvert(String value) {
+    return converter.convert(value);
+  }
+
+  @SuppressWarnings("unchecked")
+  void setValues(List<?> values) {
+    this.values = Collections.unmodifiableList((List<T>) values);
+  }
+
+  List<T> values() {
+    return values;
+  }
+}
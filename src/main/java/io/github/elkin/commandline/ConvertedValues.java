@@ -0,0 +1,32 @@
+package io.github.elkin.commandline;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Converted values which aren't kept, e.g. the ones read from a snapshot or
+// kept off the heap. They're converted every time they're read, but they
+// aren't checked since they passed the check when they were parsed.
+final class ConvertedValues extends AbstractList<Object> implements RandomAccess {
+
+  private final Conversion<?> conversion;
+  private final List<String> values;
+
+  ConvertedValues(Conversion<?> conversion, List<String> values) {
+    assert conversion != null;
+    assert values != null;
+
+    this.conversion = conversion;
+    this.values = values;
+  }
+
+  @Override
+  public Object get(int index) {
+    return conversion.reconvert(values.get(index));
+  }
+
+  @Override
+  public int size() {
+    return values.size();
+  }
+}
@@ -0,0 +1,9 @@
+package io.github.elkin.commandline;
+
+// Converts a value of an option or argument, a value which can't be
+// converted is reported with IllegalArgumentException and fails the check
+@FunctionalInterface
+public interface Converter<T> {
+
+  T convert(String value);
+}
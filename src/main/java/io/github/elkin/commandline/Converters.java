@@ -0,0 +1,143 @@
+package io.github.elkin.commandline;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+public final class Converters {
+
+  private static final int MIN_PORT = 1;
+  private static final int MAX_PORT = 65535;
+  private static final Converter<String> STRING = value -> value;
+  private static final Converter<Integer> INTEGER = integer(Integer.MIN_VALUE, Integer.MAX_VALUE);
+  private static final Converter<Integer> PORT = integer(MIN_PORT, MAX_PORT);
+  private static final Converter<Long> LONG_INTEGER = value -> {
+    long number = Util.parseLong(value, Long.MIN_VALUE, Long.MAX_VALUE);
+    if (number == Util.NOT_A_LONG && !Util.isLongMinValue(value)) {
+      throw new IllegalArgumentException("Not a long integer: " + value);
+    }
+    return number;
+  };
+  private static final Converter<Double> DECIMAL = value -> {
+    double number = Util.parseDouble(value);
+    if (Double.isNaN(number)) {
+      throw new IllegalArgumentException("Not a decimal number: " + value);
+    }
+    return number;
+  };
+  private static final Converter<Path> PATH = Paths::get;
+  private static final Converter<Duration> DURATION = Converters::parseDuration;
+
+  private Converters() {
+  }
+
+  public static Converter<String> string() {
+    return STRING;
+  }
+
+  public static Converter<Integer> integer() {
+    return INTEGER;
+  }
+
+  public static Converter<Integer> integer(int min, int max) {
+    if (min > max) {
+      throw new IllegalArgumentException("min can't be greater than max");
+    }
+
+    return value -> {
+      // min isn't less than Integer.MIN_VALUE, so the sentinel is a failure
+      long number = Util.parseLong(value, min, max);
+      if (number == Util.NOT_A_LONG) {
+        throw new IllegalArgumentException(
+            String.format("Not an integer in [%d, %d]: %s", min, max, value));
+      }
+      return (int) number;
+    };
+  }
+
+  public static Converter<Integer> port() {
+    return PORT;
+  }
+
+  public static Converter<Long> longInteger() {
+    return LONG_INTEGER;
+  }
+
+  public static Converter<Double> decimal() {
+    return DECIMAL;
+  }
+
+  public static Converter<Path> path() {
+    return PATH;
+  }
+
+  // ISO-8601 durations, e.g. PT1M30S, or a number with one of the units
+  // ms, s, m, h, d, e.g. 500ms or 2h
+  public static Converter<Duration> duration() {
+    return DURATION;
+  }
+
+  // Constants are matched case insensitively
+  public static <E extends Enum<E>> Converter<E> enumeration(Class<E> type) {
+    Objects.requireNonNull(type);
+
+    Map<String, E> constants = new HashMap<>();
+    for (E constant : type.getEnumConstants()) {
+      constants.put(constant.name().toLowerCase(Locale.ROOT), constant);
+    }
+
+    return value -> {
+      E result = constants.get(value.toLowerCase(Locale.ROOT));
+      if (result == null) {
+        throw new IllegalArgumentException(
+            String.format("Not one of %s: %s", constants.keySet(), value));
+      }
+      return result;
+    };
+  }
+
+  private static Duration parseDuration(String value) {
+    if (value.startsWith("P") || value.startsWith("p")) {
+      try {
+        return Duration.parse(value);
+      } catch (DateTimeParseException e) {
+        throw new IllegalArgumentException("Not a duration: " + value, e);
+      }
+    }
+
+    int unitStart = 0;
+    while (unitStart < value.length() && Character.isDigit(value.charAt(unitStart))) {
+      ++unitStart;
+    }
+
+    String amount = value.substring(0, unitStart);
+    long number = Util.parseLong(amount, 0, Long.MAX_VALUE);
+    if (number == Util.NOT_A_LONG) {
+      throw new IllegalArgumentException("Not a duration: " + value);
+    }
+
+    try {
+      switch (value.substring(unitStart)) {
+        case "ms":
+          return Duration.ofMillis(number);
+        case "s":
+          return Duration.ofSeconds(number);
+        case "m":
+          return Duration.ofMinutes(number);
+        case "h":
+          return Duration.ofHours(number);
+        case "d":
+          return Duration.ofDays(number);
+        default:
+          throw new IllegalArgumentException("Not a duration: " + value);
+      }
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException("Duration is too long: " + value, e);
+    }
+  }
+}
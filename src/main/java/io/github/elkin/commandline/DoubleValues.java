@@ -0,0 +1,18 @@
+package io.github.elkin.commandline;
+
+import java.util.stream.DoubleStream;
+
+public interface DoubleValues {
+
+  int size();
+
+  boolean isEmpty();
+
+  double getFirstValue();
+
+  double getValue(int index);
+
+  DoubleStream stream();
+
+  double[] toArray();
+}
@@ -0,0 +1,58 @@
+package io.github.elkin.commandline;
+
+import java.util.Arrays;
+import java.util.stream.DoubleStream;
+
+class DoubleValuesImpl implements DoubleValues {
+
+  private static final DoubleValuesImpl EMPTY = new DoubleValuesImpl(new double[0], 0);
+  private final double[] values;
+  private final int size;
+
+  // the array isn't copied, it mustn't be changed after the values are created
+  DoubleValuesImpl(double[] values, int size) {
+    assert values != null;
+    assert size >= 0 && size <= values.length;
+
+    this.values = values;
+    this.size = size;
+  }
+
+  static DoubleValuesImpl empty() {
+    return EMPTY;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public double getFirstValue() {
+    return getValue(0);
+  }
+
+  @Override
+  public double getValue(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index: %d, size: %d", index, size));
+    }
+    return values[index];
+  }
+
+  @Override
+  public DoubleStream stream() {
+    return Arrays.stream(values, 0, size);
+  }
+
+  @Override
+  public double[] toArray() {
+    return Arrays.copyOf(values, size);
+  }
+}
@@ -0,0 +1,196 @@
+package io.github.elkin.commandline;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Predicate;
+
+// Checks values against a file with one value per line, the lines have to be
+// sorted by their UTF-8 bytes, e.g. with LC_ALL=C sort. The file is mapped
+// into memory and searched with binary search, only a Bloom filter built
+// while the file is opened is kept on the heap. The filter rejects most of
+// unknown values without touching the file.
+final class FileChoice implements Predicate<String> {
+
+  private static final int SEGMENT_SHIFT = 30;
+  private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+  private static final int BITS_PER_VALUE = 10;
+  private static final int NUMBER_OF_HASHES = 7;
+  private static final int MIN_NUMBER_OF_BITS = 64;
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final Path path;
+  private final MappedByteBuffer[] segments;
+  private final long size;
+  private final long[] bits;
+  private final long bitMask;
+
+  FileChoice(Path path) throws IOException {
+    assert path != null;
+
+    this.path = path;
+    // the mapping stays valid after the channel is closed
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      size = channel.size();
+      segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+      for (int i = 0; i < segments.length; ++i) {
+        long start = (long) i << SEGMENT_SHIFT;
+        segments[i] = channel.map(MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+      }
+    }
+
+    long numberOfBits = Math.max(MIN_NUMBER_OF_BITS, countLines() * BITS_PER_VALUE);
+    numberOfBits = Long.highestOneBit(numberOfBits - 1) << 1;
+    if (numberOfBits / Long.SIZE > Integer.MAX_VALUE) {
+      throw new IOException("Too many values in file " + path);
+    }
+    bits = new long[(int) (numberOfBits / Long.SIZE)];
+    bitMask = numberOfBits - 1;
+    fillFilter();
+  }
+
+  private byte byteAt(long position) {
+    return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & (SEGMENT_SIZE - 1)));
+  }
+
+  private long lineEnd(long start) {
+    long end = start;
+    while (end < size && byteAt(end) != '\n') {
+      ++end;
+    }
+    return end;
+  }
+
+  // Excludes '\r' of the line end
+  private long valueEnd(long start, long lineEnd) {
+    return lineEnd > start && byteAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+  }
+
+  private long countLines() {
+    long result = 0;
+    for (long position = 0; position < size; position = lineEnd(position) + 1) {
+      ++result;
+    }
+    return result;
+  }
+
+  private void fillFilter() {
+    long previousStart = -1;
+    long previousEnd = -1;
+    long line = 0;
+    for (long start = 0; start < size; ) {
+      long lineEnd = lineEnd(start);
+      long end = valueEnd(start, lineEnd);
+      ++line;
+
+      if (previousStart >= 0 && compare(previousStart, previousEnd, start, end) > 0) {
+        throw new IllegalArgumentException(
+            String.format("Line %d of file %s isn't sorted", line, path));
+      }
+
+      long hash = FNV_OFFSET_BASIS;
+      for (long position = start; position < end; ++position) {
+        hash = (hash ^ (byteAt(position) & 0xff)) * FNV_PRIME;
+      }
+      addToFilter(mix(hash));
+
+      previousStart = start;
+      previousEnd = end;
+      start = lineEnd + 1;
+    }
+  }
+
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  private void addToFilter(long hash) {
+    int first = (int) hash;
+    int second = (int) (hash >>> 32);
+    for (int i = 0; i < NUMBER_OF_HASHES; ++i) {
+      long bit = (first + (long) i * second) & bitMask;
+      bits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  private boolean mayContain(long hash) {
+    int first = (int) hash;
+    int second = (int) (hash >>> 32);
+    for (int i = 0; i < NUMBER_OF_HASHES; ++i) {
+      long bit = (first + (long) i * second) & bitMask;
+      if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int compare(long firstStart, long firstEnd, long secondStart, long secondEnd) {
+    long firstLength = firstEnd - firstStart;
+    long secondLength = secondEnd - secondStart;
+    long length = Math.min(firstLength, secondLength);
+    for (long i = 0; i < length; ++i) {
+      int result = Integer.compare(
+          byteAt(firstStart + i) & 0xff,
+          byteAt(secondStart + i) & 0xff);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return Long.compare(firstLength, secondLength);
+  }
+
+  private int compare(long start, long end, byte[] value) {
+    long length = Math.min(end - start, value.length);
+    for (int i = 0; i < length; ++i) {
+      int result = Integer.compare(byteAt(start + i) & 0xff, value[i] & 0xff);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return Long.compare(end - start, value.length);
+  }
+
+  @Override
+  public boolean test(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    long hash = FNV_OFFSET_BASIS;
+    for (byte b : bytes) {
+      hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+    }
+    if (!mayContain(mix(hash))) {
+      return false;
+    }
+
+    // low and high are always at line starts
+    long low = 0;
+    long high = size;
+    while (low < high) {
+      long start = (low + high) >>> 1;
+      while (start > low && byteAt(start - 1) != '\n') {
+        --start;
+      }
+
+      long lineEnd = lineEnd(start);
+      int result = compare(start, valueEnd(start, lineEnd), bytes);
+      if (result == 0) {
+        return true;
+      }
+
+      if (result < 0) {
+        low = lineEnd + 1;
+      } else {
+        high = start;
+      }
+    }
+    return false;
+  }
+}
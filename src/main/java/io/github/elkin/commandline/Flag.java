@@ -11,6 +11,7 @@ import java.util.function.Consumer;
 public final class Flag {
 
   private final String name;
+  private final int index;
   private final SortedSet<String> prefixes;
   private final FlagPrefixHandler flagPrefixHandler;
   private boolean isSet;
@@ -20,13 +21,15 @@ public final class Flag {
   private Consumer<Flag> consumer;
   private String description;
 
-  Flag(String name, String prefix, FlagPrefixHandler flagPrefixHandler) {
+  Flag(String name, int index, String prefix, FlagPrefixHandler flagPrefixHandler) {
     assert name != null;
     assert !name.isEmpty();
+    assert index >= 0;
     assert prefix != null;
     assert Util.isOption(prefix);
 
     this.name = name;
+    this.index = index;
     prefixes = new TreeSet<>();
     prefixes.add(prefix);
     maxNumberOfValues = 1;
@@ -35,10 +38,20 @@ public final class Flag {
     this.flagPrefixHandler = flagPrefixHandler;
   }
 
-  void set() {
+  void set(int count) {
+    assert count > 0;
+
     isSet = true;
-    numberOfFlags++;
-    consumer.accept(this);
+    numberOfFlags += count;
+  }
+
+  void reset() {
+    isSet = false;
+    numberOfFlags = 0;
+  }
+
+  int index() {
+    return index;
   }
 
   public String name() {
@@ -91,6 +104,11 @@ public final class Flag {
     return this;
   }
 
+  // The consumer is run on the executor of async consumers
+  public Flag setAsyncConsumer(Consumer<Flag> consumer) {
+    return setConsumer(new AsyncConsumer<>(consumer));
+  }
+
   public Consumer<Flag> consumer() {
     return consumer;
   }
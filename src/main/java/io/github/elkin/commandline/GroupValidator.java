@@ -2,20 +2,16 @@ package io.github.elkin.commandline;
 
 import io.github.elkin.commandline.exception.ValidationException;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
-import java.util.Set;
+import java.util.function.Predicate;
 
 public class GroupValidator implements Validator {
 
-  private final Set<Integer> activeGroupIds;
   private final List<Group> groups;
   private int groupId;
 
   public GroupValidator() {
-    activeGroupIds = new HashSet<>();
     // groupId = 0; not needed, by default
     groups = new ArrayList<>();
   }
@@ -31,25 +27,47 @@ public class GroupValidator implements Validator {
     return group;
   }
 
-  @Override
-  public void validate(List<Argument> arguments, List<Option> options, List<Flag> flags) {
-    assert arguments != null;
-    assert options != null;
-    assert flags != null;
+  private void validate(Predicate<Option> isUsed, Predicate<Flag> isSet) {
+    // state of a validation is kept here, so a validator can be used by
+    // several threads at once
+    List<Group> activeGroups = new ArrayList<>();
+    for (Group group : groups) {
+      if (group.isActive(isUsed, isSet)) {
+        activeGroups.add(group);
+      }
+    }
 
-    if (activeGroupIds.size() > 1) {
+    if (activeGroups.size() > 1) {
       StringBuilder result = new StringBuilder(
           "Options/flags from different groups can't be used together:")
           .append(System.lineSeparator());
-      for (Integer gid : activeGroupIds) {
-        Group group = groups.get(gid);
-        result.append(group);
+      for (Group group : activeGroups) {
+        result.append(group.describe(isUsed, isSet));
         result.append(System.lineSeparator());
       }
       throw new ValidationException(result.toString());
     }
   }
 
+  @Override
+  public void validate(CommandLine commandLine) {
+    Objects.requireNonNull(commandLine);
+
+    validate(commandLine::isProvided, commandLine::isFlagSet);
+  }
+
+  // Uses the state which is set to options and flags by
+  // CommandLine.getCommandLine(), an option is used if it's provided in the
+  // args, even with its default value
+  @Override
+  public void validate(List<Argument> arguments, List<Option> options, List<Flag> flags) {
+    assert arguments != null;
+    assert options != null;
+    assert flags != null;
+
+    validate(Option::isProvided, Flag::isSet);
+  }
+
   public class Group {
 
     private final String name;
@@ -69,11 +87,7 @@ public class GroupValidator implements Validator {
 
     public Group addFlag(Flag flag) {
       Objects.requireNonNull(flag);
-      flag.setConsumer(
-          flag.consumer().andThen(f -> {
-            activeGroupIds.add(id);
-            flags.add(flag);
-          }));
+      flags.add(flag);
       return this;
     }
 
@@ -88,12 +102,7 @@ public class GroupValidator implements Validator {
 
     public Group addOption(Option option) {
       Objects.requireNonNull(option);
-
-      option.setConsumer(
-          option.consumer().andThen(o -> {
-            activeGroupIds.add(id);
-            options.add(option);
-          }));
+      options.add(option);
       return this;
     }
 
@@ -106,8 +115,12 @@ public class GroupValidator implements Validator {
       return this;
     }
 
-    @Override
-    public String toString() {
+    private boolean isActive(Predicate<Option> isUsed, Predicate<Flag> isSet) {
+      return options.stream().anyMatch(isUsed) || flags.stream().anyMatch(isSet);
+    }
+
+    // Describes the group by its options and flags which are used
+    private String describe(Predicate<Option> isUsed, Predicate<Flag> isSet) {
       StringBuilder result = new StringBuilder("Group ");
       if (name.isEmpty()) {
         result.append(id);
@@ -116,29 +129,24 @@ public class GroupValidator implements Validator {
       }
       result.append(' ');
 
-      for (Iterator<Option> iter = options.iterator(); iter.hasNext(); ) {
-        Option option = iter.next();
-        String description = String.join("|", option.prefixes());
-        result.append(description);
-        if (iter.hasNext()) {
-          result.append(", ");
+      List<String> descriptions = new ArrayList<>();
+      for (Option option : options) {
+        if (isUsed.test(option)) {
+          descriptions.add(String.join("|", option.prefixes()));
         }
       }
-
-      if (!flags.isEmpty()) {
-        result.append(", ");
-      }
-
-      for (Iterator<Flag> iter = flags.iterator(); iter.hasNext(); ) {
-        Flag flag = iter.next();
-        String description = String.join("|", flag.prefixes());
-        result.append(description);
-        if (iter.hasNext()) {
-          result.append(", ");
+      for (Flag flag : flags) {
+        if (isSet.test(flag)) {
+          descriptions.add(String.join("|", flag.prefixes()));
         }
       }
 
-      return result.toString();
+      return result.append(String.join(", ", descriptions)).toString();
+    }
+
+    @Override
+    public String toString() {
+      return describe(option -> true, flag -> true);
     }
   }
 }
@@ -0,0 +1,73 @@
+package io.github.elkin.commandline;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Open addressing table of allowed values. The smallest table where values
+// don't collide is looked for first, so a lookup of a small set takes one
+// hash and one comparison, otherwise collisions are resolved by linear probing.
+final class HashChoice implements Predicate<String> {
+
+  private static final int MIN_SIZE_FACTOR = 2;
+  private static final int MAX_SIZE_FACTOR = 16;
+  private static final int MAX_PERFECT_SIZE = 1 << 12;
+
+  private final String[] table;
+  private final int mask;
+
+  HashChoice(Collection<String> values) {
+    Set<String> distinct = new LinkedHashSet<>();
+    for (String value : values) {
+      distinct.add(Objects.requireNonNull(value));
+    }
+
+    int minSize = Integer.highestOneBit(Math.max(1, distinct.size() * MIN_SIZE_FACTOR - 1)) << 1;
+    int maxSize = Math.min(MAX_PERFECT_SIZE, minSize * MAX_SIZE_FACTOR);
+    String[] result = null;
+    for (int size = minSize; result == null && size <= maxSize; size <<= 1) {
+      result = fill(distinct, size, false);
+    }
+
+    if (result == null) {
+      result = fill(distinct, minSize, true);
+    }
+    table = result;
+    mask = table.length - 1;
+  }
+
+  private static int index(String value, int mask) {
+    int hash = value.hashCode();
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  // Returns null if collisions aren't allowed and there's one
+  private static String[] fill(Set<String> values, int size, boolean allowCollisions) {
+    String[] result = new String[size];
+    int mask = size - 1;
+    for (String value : values) {
+      int index = index(value, mask);
+      if (result[index] != null && !allowCollisions) {
+        return null;
+      }
+
+      while (result[index] != null) {
+        index = (index + 1) & mask;
+      }
+      result[index] = value;
+    }
+    return result;
+  }
+
+  @Override
+  public boolean test(String value) {
+    for (int index = index(value, mask); table[index] != null; index = (index + 1) & mask) {
+      if (table[index].equals(value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
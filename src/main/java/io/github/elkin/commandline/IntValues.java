@@ -0,0 +1,18 @@
+package io.github.elkin.commandline;
+
+import java.util.stream.IntStream;
+
+public interface IntValues {
+
+  int size();
+
+  boolean isEmpty();
+
+  int getFirstValue();
+
+  int getValue(int index);
+
+  IntStream stream();
+
+  int[] toArray();
+}
@@ -0,0 +1,58 @@
+package io.github.elkin.commandline;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+class IntValuesImpl implements IntValues {
+
+  private static final IntValuesImpl EMPTY = new IntValuesImpl(new int[0], 0);
+  private final int[] values;
+  private final int size;
+
+  // the array isn't copied, it mustn't be changed after the values are created
+  IntValuesImpl(int[] values, int size) {
+    assert values != null;
+    assert size >= 0 && size <= values.length;
+
+    this.values = values;
+    this.size = size;
+  }
+
+  static IntValuesImpl empty() {
+    return EMPTY;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int getFirstValue() {
+    return getValue(0);
+  }
+
+  @Override
+  public int getValue(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index: %d, size: %d", index, size));
+    }
+    return values[index];
+  }
+
+  @Override
+  public IntStream stream() {
+    return Arrays.stream(values, 0, size);
+  }
+
+  @Override
+  public int[] toArray() {
+    return Arrays.copyOf(values, size);
+  }
+}
@@ -0,0 +1,18 @@
+package io.github.elkin.commandline;
+
+import java.util.stream.LongStream;
+
+public interface LongValues {
+
+  int size();
+
+  boolean isEmpty();
+
+  long getFirstValue();
+
+  long getValue(int index);
+
+  LongStream stream();
+
+  long[] toArray();
+}
@@ -0,0 +1,58 @@
+package io.github.elkin.commandline;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+class LongValuesImpl implements LongValues {
+
+  private static final LongValuesImpl EMPTY = new LongValuesImpl(new long[0], 0);
+  private final long[] values;
+  private final int size;
+
+  // the array isn't copied, it mustn't be changed after the values are created
+  LongValuesImpl(long[] values, int size) {
+    assert values != null;
+    assert size >= 0 && size <= values.length;
+
+    this.values = values;
+    this.size = size;
+  }
+
+  static LongValuesImpl empty() {
+    return EMPTY;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public long getFirstValue() {
+    return getValue(0);
+  }
+
+  @Override
+  public long getValue(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(
+          String.format("Index: %d, size: %d", index, size));
+    }
+    return values[index];
+  }
+
+  @Override
+  public LongStream stream() {
+    return Arrays.stream(values, 0, size);
+  }
+
+  @Override
+  public long[] toArray() {
+    return Arrays.copyOf(values, size);
+  }
+}
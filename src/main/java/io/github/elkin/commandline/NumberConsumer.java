@@ -0,0 +1,91 @@
+package io.github.elkin.commandline;
+
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+// Consumer of numbers made by Util.intConsumer() and the like. The parser
+// passes the number a value is parsed into by the values of its option or
+// argument, so the value is parsed once. Other values are parsed here.
+final class NumberConsumer implements Consumer<String> {
+
+  private final ValueType type;
+  private final IntConsumer ints;
+  private final LongConsumer longs;
+  private final DoubleConsumer doubles;
+
+  private NumberConsumer(ValueType type,
+      IntConsumer ints,
+      LongConsumer longs,
+      DoubleConsumer doubles) {
+    this.type = type;
+    this.ints = ints;
+    this.longs = longs;
+    this.doubles = doubles;
+  }
+
+  static NumberConsumer ofInts(IntConsumer consumer) {
+    return new NumberConsumer(ValueType.INT, consumer, null, null);
+  }
+
+  static NumberConsumer ofLongs(LongConsumer consumer) {
+    return new NumberConsumer(ValueType.LONG, null, consumer, null);
+  }
+
+  static NumberConsumer ofDoubles(DoubleConsumer consumer) {
+    return new NumberConsumer(ValueType.DOUBLE, null, null, consumer);
+  }
+
+  // Passes the last number of the values if they have the same type,
+  // returns false otherwise
+  boolean acceptLast(NumberValues numbers) {
+    if (numbers == null || numbers.type() != type) {
+      return false;
+    }
+
+    switch (type) {
+      case INT:
+        ints.accept((int) numbers.lastLong());
+        break;
+      case LONG:
+        longs.accept(numbers.lastLong());
+        break;
+      default:
+        doubles.accept(numbers.lastDouble());
+        break;
+    }
+    return true;
+  }
+
+  // Throws NumberFormatException if the value isn't a number of the type
+  @Override
+  public void accept(String value) {
+    switch (type) {
+      case INT: {
+        long number = Util.parseLong(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        if (number == Util.NOT_A_LONG) {
+          throw new NumberFormatException("Not an int: " + value);
+        }
+        ints.accept((int) number);
+        break;
+      }
+      case LONG: {
+        long number = Util.parseLong(value, Long.MIN_VALUE, Long.MAX_VALUE);
+        if (number == Util.NOT_A_LONG && !Util.isLongMinValue(value)) {
+          throw new NumberFormatException("Not a long: " + value);
+        }
+        longs.accept(number);
+        break;
+      }
+      default: {
+        double number = Util.parseDouble(value);
+        if (Double.isNaN(number)) {
+          throw new NumberFormatException("Not a decimal number: " + value);
+        }
+        doubles.accept(number);
+        break;
+      }
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package io.github.elkin.commandline;
+
+import java.util.Arrays;
+
+// Values of an option or argument parsed into a primitive array of its type,
+// every value is parsed once when it's added
+final class NumberValues {
+
+  private static final int INITIAL_CAPACITY = 4;
+
+  private final ValueType type;
+  private int[] ints;
+  private long[] longs;
+  private double[] doubles;
+  private int size;
+  // the last value which is parsed, whether it's kept or only checked
+  private long lastLong;
+  private double lastDouble;
+
+  NumberValues(ValueType type) {
+    assert type != null;
+    assert type != ValueType.STRING;
+
+    this.type = type;
+  }
+
+  // Values which are parsed before, e.g. read from a snapshot
+  static NumberValues of(int[] values) {
+    NumberValues result = new NumberValues(ValueType.INT);
+    result.ints = values;
+    result.size = values.length;
+    return result;
+  }
+
+  static NumberValues of(long[] values) {
+    NumberValues result = new NumberValues(ValueType.LONG);
+    result.longs = values;
+    result.size = values.length;
+    return result;
+  }
+
+  static NumberValues of(double[] values) {
+    NumberValues result = new NumberValues(ValueType.DOUBLE);
+    result.doubles = values;
+    result.size = values.length;
+    return result;
+  }
+
+  private int newCapacity() {
+    return Math.max(INITIAL_CAPACITY, size * 2);
+  }
+
+  // Returns false if the value can't be parsed
+  boolean add(String value) {
+    if (!check(value)) {
+      return false;
+    }
+
+    switch (type) {
+      case INT:
+        if (ints == null || size == ints.length) {
+          ints = ints == null
+              ? new int[INITIAL_CAPACITY]
+              : Arrays.copyOf(ints, newCapacity());
+        }
+        ints[size] = (int) lastLong;
+        break;
+      case LONG:
+        if (longs == null || size == longs.length) {
+          longs = longs == null
+              ? new long[INITIAL_CAPACITY]
+              : Arrays.copyOf(longs, newCapacity());
+        }
+        longs[size] = lastLong;
+        break;
+      default:
+        if (doubles == null || size == doubles.length) {
+          doubles = doubles == null
+              ? new double[INITIAL_CAPACITY]
+              : Arrays.copyOf(doubles, newCapacity());
+        }
+        doubles[size] = lastDouble;
+        break;
+    }
+
+    ++size;
+    return true;
+  }
+
+  void clear() {
+    size = 0;
+  }
+
+  // Parses the value without keeping it, the number is available as the
+  // last one until the next value is parsed
+  boolean check(String value) {
+    switch (type) {
+      case INT:
+        // Long.MIN_VALUE isn't an int, so the sentinel is always a failure
+        lastLong = Util.parseLong(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        return lastLong != Util.NOT_A_LONG;
+      case LONG:
+        lastLong = Util.parseLong(value, Long.MIN_VALUE, Long.MAX_VALUE);
+        return lastLong != Util.NOT_A_LONG || Util.isLongMinValue(value);
+      default:
+        lastDouble = Util.parseDouble(value);
+        return !Double.isNaN(lastDouble);
+    }
+  }
+
+  ValueType type() {
+    return type;
+  }
+
+  long lastLong() {
+    return lastLong;
+  }
+
+  double lastDouble() {
+    return lastDouble;
+  }
+
+  static void checkType(String name, ValueType type, ValueType expected) {
+    if (type != expected) {
+      throw new IllegalStateException(
+          String.format("Values of <%s> have type %s, not %s", name, type, expected));
+    }
+  }
+
+  IntValues intValues() {
+    assert type == ValueType.INT;
+    return size == 0 ? IntValuesImpl.empty() : new IntValuesImpl(ints, size);
+  }
+
+  LongValues longValues() {
+    assert type == ValueType.LONG;
+    return size == 0 ? LongValuesImpl.empty() : new LongValuesImpl(longs, size);
+  }
+
+  DoubleValues doubleValues() {
+    assert type == ValueType.DOUBLE;
+    return size == 0 ? DoubleValuesImpl.empty() : new DoubleValuesImpl(doubles, size);
+  }
+}
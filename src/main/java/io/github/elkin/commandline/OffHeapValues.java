@@ -0,0 +1,91 @@
+package io.github.elkin.commandline;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Values kept in direct buffers, each one is UTF-8 encoded and prefixed with
+// its length. Positions of the values are kept in direct buffers too, so the
+// heap keeps only references to the buffers. A value is decoded every time
+// it's read.
+final class OffHeapValues extends AbstractList<String> implements RandomAccess {
+
+  private static final int CHUNK_SIZE = 1 << 20;
+  private static final int INDEX_CHUNK_SHIFT = 17;
+  private static final int INDEX_CHUNK_LENGTH = 1 << INDEX_CHUNK_SHIFT;
+
+  private final List<ByteBuffer> chunks;
+  private final List<ByteBuffer> indexChunks;
+  private int currentChunk;
+  private int size;
+
+  OffHeapValues() {
+    chunks = new ArrayList<>();
+    indexChunks = new ArrayList<>();
+  }
+
+  // Returns the chunk which has enough space for the number of bytes, a
+  // value which doesn't fit into a chunk gets its own one
+  private int chunkFor(int numberOfBytes) {
+    // chunks after the current one are left from a previous use
+    for (; currentChunk < chunks.size(); ++currentChunk) {
+      if (chunks.get(currentChunk).remaining() >= numberOfBytes) {
+        return currentChunk;
+      }
+    }
+
+    chunks.add(ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, numberOfBytes)));
+    return currentChunk;
+  }
+
+  void append(String value) {
+    assert value != null;
+
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    int chunk = chunkFor(Integer.BYTES + bytes.length);
+    ByteBuffer buffer = chunks.get(chunk);
+    int offset = buffer.position();
+    buffer.putInt(bytes.length);
+    buffer.put(bytes);
+
+    if (size >>> INDEX_CHUNK_SHIFT == indexChunks.size()) {
+      indexChunks.add(ByteBuffer.allocateDirect(INDEX_CHUNK_LENGTH * Long.BYTES));
+    }
+    indexChunks.get(size >>> INDEX_CHUNK_SHIFT).putLong(((long) chunk << 32) | offset);
+    ++size;
+  }
+
+  // Keeps the buffers to be filled again
+  @Override
+  public void clear() {
+    chunks.forEach(ByteBuffer::clear);
+    indexChunks.forEach(ByteBuffer::clear);
+    currentChunk = 0;
+    size = 0;
+  }
+
+  @Override
+  public String get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+
+    long position = indexChunks.get(index >>> INDEX_CHUNK_SHIFT)
+        .getLong((index & (INDEX_CHUNK_LENGTH - 1)) * Long.BYTES);
+    // the chunk's position is where the next value is written, so the value
+    // is read through a duplicate
+    ByteBuffer buffer = chunks.get((int) (position >>> 32)).duplicate();
+    buffer.position((int) position);
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+}
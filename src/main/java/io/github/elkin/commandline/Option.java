@@ -15,6 +15,7 @@ import java.util.function.Predicate;
 public class Option {
 
   private final String name;
+  private final int index;
   private final SortedSet<String> prefixes;
   private final OptionPrefixHandler optionPrefixHandler;
   private Consumer<String> consumer;
@@ -25,14 +26,20 @@ public class Option {
   private String description;
   private Optional<String> value;
   private Values values;
+  private ValueType valueType;
+  private NumberValues numbers;
+  private Conversion<?> conversion;
+  private boolean isProvided;
 
-  Option(String name, String prefix, OptionPrefixHandler optionPrefixHandler) {
+  Option(String name, int index, String prefix, OptionPrefixHandler optionPrefixHandler) {
     assert name != null;
     assert !name.isEmpty();
+    assert index >= 0;
     assert prefix != null;
     assert Util.isOption(prefix);
 
     this.name = name;
+    this.index = index;
     prefixes = new TreeSet<>();
     prefixes.add(prefix);
     consumer = Util.empty();
@@ -42,6 +49,7 @@ public class Option {
     description = "";
     value = Optional.empty();
     values = ValuesImpl.empty();
+    valueType = ValueType.STRING;
     this.optionPrefixHandler = optionPrefixHandler;
   }
 
@@ -53,6 +61,32 @@ public class Option {
     this.values = values;
   }
 
+  // Set with the values, default values don't make the option provided
+  void setProvided(boolean isProvided) {
+    this.isProvided = isProvided;
+  }
+
+  boolean isProvided() {
+    return isProvided;
+  }
+
+  void setNumbers(NumberValues numbers) {
+    this.numbers = numbers;
+  }
+
+  Conversion<?> conversion() {
+    return conversion;
+  }
+
+  void setConversion(Conversion<?> conversion) {
+    assert this.conversion == null;
+    this.conversion = conversion;
+  }
+
+  int index() {
+    return index;
+  }
+
   public String name() {
     return name;
   }
@@ -77,6 +111,11 @@ public class Option {
     return this;
   }
 
+  // The consumer is run on the executor of async consumers
+  public Option setAsyncConsumer(Consumer<String> consumer) {
+    return setConsumer(new AsyncConsumer<>(consumer));
+  }
+
   public Predicate<String> checker() {
     return checker;
   }
@@ -125,6 +164,16 @@ public class Option {
     return this;
   }
 
+  public ValueType valueType() {
+    return valueType;
+  }
+
+  public Option setValueType(ValueType valueType) {
+    this.valueType = Objects.requireNonNull(valueType);
+    numbers = null;
+    return this;
+  }
+
   public Optional<String> value() {
     return value;
   }
@@ -133,6 +182,21 @@ public class Option {
     return values;
   }
 
+  public IntValues intValues() {
+    NumberValues.checkType(name, valueType, ValueType.INT);
+    return numbers == null ? IntValuesImpl.empty() : numbers.intValues();
+  }
+
+  public LongValues longValues() {
+    NumberValues.checkType(name, valueType, ValueType.LONG);
+    return numbers == null ? LongValuesImpl.empty() : numbers.longValues();
+  }
+
+  public DoubleValues doubleValues() {
+    NumberValues.checkType(name, valueType, ValueType.DOUBLE);
+    return numbers == null ? DoubleValuesImpl.empty() : numbers.doubleValues();
+  }
+
   @Override
   public String toString() {
     return String.format(
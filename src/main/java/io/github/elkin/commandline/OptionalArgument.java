@@ -35,12 +35,28 @@ public final class OptionalArgument extends Argument {
     return this;
   }
 
+  public OptionalArgument setAsyncConsumer(Consumer<String> consumer) {
+    super.setConsumer(new AsyncConsumer<>(consumer));
+    return this;
+  }
+
   @Override
   public OptionalArgument setDescription(String description) {
     super.setDescription(description);
     return this;
   }
 
+  @Override
+  public ValueType valueType() {
+    return super.valueType();
+  }
+
+  @Override
+  public OptionalArgument setValueType(ValueType valueType) {
+    super.setValueType(valueType);
+    return this;
+  }
+
   @Override
   void setValue(String value) {
     assert value != null;
@@ -51,15 +67,13 @@ public final class OptionalArgument extends Argument {
   }
 
   @Override
-  void setRemainder(Values remainder) {
-    assert value.isPresent();
-    assert remainder != null;
-    assert !remainder.isEmpty();
-    assert value.isPresent();
+  void setValues(ValuesImpl values) {
+    assert values != null;
+    assert values.size() > 1;
 
-    this.remainder = remainder;
-
-    values = new ValuesImpl(value.get(), this.remainder);
+    value = Optional.of(values.getFirstValue());
+    remainder = values.subValues(1);
+    this.values = values;
   }
 
   public Optional<String> value() {
@@ -74,6 +88,21 @@ public final class OptionalArgument extends Argument {
     return values;
   }
 
+  @Override
+  public IntValues intValues() {
+    return super.intValues();
+  }
+
+  @Override
+  public LongValues longValues() {
+    return super.longValues();
+  }
+
+  @Override
+  public DoubleValues doubleValues() {
+    return super.doubleValues();
+  }
+
   @Override
   public String toString() {
     return String.format(
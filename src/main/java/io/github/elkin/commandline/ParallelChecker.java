@@ -0,0 +1,177 @@
+package io.github.elkin.commandline;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+// Checks values by batches, every batch is split into tasks which run on the
+// executor. Tasks stop as soon as a value with lower index fails the check,
+// so the failure with the lowest index is reported whatever order tasks run in.
+final class ParallelChecker {
+
+  static final int NO_FAILURE = -1;
+  private static final int BATCH_SIZE = 8192;
+  private static final int TASK_SIZE = 256;
+
+  private final Executor executor;
+  private final int[] slots;
+  private final Predicate<String>[] checkers;
+  private final String[] values;
+  private int size;
+  private Throwable error;
+
+  @SuppressWarnings("unchecked")
+  ParallelChecker(Executor executor) {
+    assert executor != null;
+
+    this.executor = executor;
+    slots = new int[BATCH_SIZE];
+    checkers = (Predicate<String>[]) new Predicate<?>[BATCH_SIZE];
+    values = new String[BATCH_SIZE];
+  }
+
+  // Returns true if the batch is full and has to be checked
+  boolean add(int slot, Predicate<String> checker, String value) {
+    assert size < BATCH_SIZE;
+
+    slots[size] = slot;
+    checkers[size] = checker;
+    values[size] = value;
+    return ++size == BATCH_SIZE;
+  }
+
+  int size() {
+    return size;
+  }
+
+  int slot(int index) {
+    return slots[index];
+  }
+
+  String value(int index) {
+    return values[index];
+  }
+
+  // An exception thrown by the checker of the failed value, if any
+  Throwable error() {
+    return error;
+  }
+
+  void clear() {
+    for (int i = 0; i < size; ++i) {
+      checkers[i] = null;
+      values[i] = null;
+    }
+    size = 0;
+    error = null;
+  }
+
+  // Returns the lowest index of a value which fails the check
+  int check() {
+    int numberOfTasks = (size + TASK_SIZE - 1) / TASK_SIZE;
+    if (numberOfTasks <= 1) {
+      Task task = new Task(0, size, new AtomicInteger(Integer.MAX_VALUE));
+      task.run();
+      return result(task.failure, task.error);
+    }
+
+    AtomicInteger lowestFailure = new AtomicInteger(Integer.MAX_VALUE);
+    Task[] tasks = new Task[numberOfTasks];
+    for (int i = 0; i < numberOfTasks; ++i) {
+      tasks[i] = new Task(i * TASK_SIZE, Math.min(size, (i + 1) * TASK_SIZE), lowestFailure);
+    }
+
+    // tasks are claimed by the current thread and by the workers, so the
+    // current thread waits only for tasks which are running. Tasks queued
+    // behind blocked workers, e.g. when the parse itself runs on the pool,
+    // are run by the current thread.
+    AtomicInteger nextTask = new AtomicInteger();
+    CountDownLatch latch = new CountDownLatch(numberOfTasks);
+    Runnable worker = () -> runTasks(tasks, nextTask, latch);
+    for (int i = 1; i < numberOfTasks; ++i) {
+      executor.execute(worker);
+    }
+    worker.run();
+    awaitUninterruptibly(latch);
+
+    // tasks are ordered by indices, so the first failed task has the lowest one
+    for (Task task : tasks) {
+      if (task.failure != NO_FAILURE) {
+        return result(task.failure, task.error);
+      }
+    }
+    return NO_FAILURE;
+  }
+
+  private static void runTasks(Task[] tasks, AtomicInteger nextTask, CountDownLatch latch) {
+    for (int i = nextTask.getAndIncrement(); i < tasks.length; i = nextTask.getAndIncrement()) {
+      try {
+        tasks[i].run();
+      } finally {
+        latch.countDown();
+      }
+    }
+  }
+
+  private int result(int failure, Throwable error) {
+    this.error = error;
+    return failure;
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean isInterrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        isInterrupted = true;
+      }
+    }
+
+    if (isInterrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private final class Task implements Runnable {
+
+    private final int from;
+    private final int to;
+    private final AtomicInteger lowestFailure;
+    // written before the latch is counted down, so they're visible after await
+    private int failure;
+    private Throwable error;
+
+    Task(int from, int to, AtomicInteger lowestFailure) {
+      this.from = from;
+      this.to = to;
+      this.lowestFailure = lowestFailure;
+      failure = NO_FAILURE;
+    }
+
+    @Override
+    public void run() {
+      for (int i = from; i < to; ++i) {
+        if (lowestFailure.get() < i) {
+          return;
+        }
+
+        boolean isValid;
+        try {
+          isValid = checkers[i].test(values[i]);
+        } catch (Throwable e) {
+          error = e;
+          isValid = false;
+        }
+
+        if (!isValid) {
+          failure = i;
+          lowestFailure.accumulateAndGet(i, Math::min);
+          return;
+        }
+      }
+    }
+  }
+}
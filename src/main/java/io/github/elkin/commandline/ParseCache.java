@@ -0,0 +1,84 @@
+package io.github.elkin.commandline;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded cache of parsed command lines, the least recently used one is
+// evicted first. Args of a cached command line are compared exactly, the
+// hash is used only to find them.
+final class ParseCache {
+
+  private final Map<Key, CommandLine> commandLines;
+  private final AtomicLong hits;
+  private final AtomicLong misses;
+
+  ParseCache(int size) {
+    assert size > 0;
+
+    commandLines = new LinkedHashMap<Key, CommandLine>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, CommandLine> eldest) {
+        return size() > size;
+      }
+    };
+    hits = new AtomicLong();
+    misses = new AtomicLong();
+  }
+
+  // Returns null if there's no command line for the args
+  CommandLine get(String[] args) {
+    CommandLine result;
+    synchronized (commandLines) {
+      result = commandLines.get(new Key(args));
+    }
+
+    (result == null ? misses : hits).incrementAndGet();
+    return result;
+  }
+
+  // The args are kept as they are, so they mustn't be modified
+  void put(String[] args, CommandLine commandLine) {
+    synchronized (commandLines) {
+      commandLines.put(new Key(args), commandLine);
+    }
+  }
+
+  long hits() {
+    return hits.get();
+  }
+
+  long misses() {
+    return misses.get();
+  }
+
+  private static final class Key {
+
+    private final String[] args;
+    private final int hash;
+
+    Key(String[] args) {
+      this.args = args;
+      hash = Arrays.hashCode(args);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof Key)) {
+        return false;
+      }
+
+      Key key = (Key) other;
+      return hash == key.hash && Arrays.equals(args, key.args);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
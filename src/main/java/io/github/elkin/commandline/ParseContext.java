@@ -0,0 +1,53 @@
+package io.github.elkin.commandline;
+
+import io.github.elkin.commandline.exception.CommandLineException;
+import java.util.Objects;
+
+// Parses args with the same state every time, so buffers of the parser are
+// allocated once. The returned command line is overwritten by the next parse
+// and it reads its values from the args, so neither of them has to be used
+// after the next parse or changed before it. A context is used by one thread
+// at a time.
+public final class ParseContext {
+
+  private static final HelpRequestHandler IGNORE_HELP_REQUEST_HANDLER =
+      (configuration, args) -> {
+      };
+
+  private final CompiledParser parser;
+  private final CommandLineParser commandLineParser;
+
+  ParseContext(CompiledParser parser) {
+    assert parser != null;
+
+    this.parser = parser;
+    commandLineParser = new CommandLineParser(parser);
+  }
+
+  public CommandLine parse(String[] args) {
+    Objects.requireNonNull(args);
+
+    return commandLineParser.parse(args, IGNORE_HELP_REQUEST_HANDLER);
+  }
+
+  public CommandLine parse(String[] args,
+      HelpRequestHandler helpRequestHandler,
+      ExceptionHandler exceptionHandler) {
+    Objects.requireNonNull(args);
+    Objects.requireNonNull(helpRequestHandler);
+    Objects.requireNonNull(exceptionHandler);
+
+    try {
+      return commandLineParser.parse(args, helpRequestHandler);
+    } catch (CommandLineException e) {
+      exceptionHandler.handleException(e, parser.configuration(), args);
+    }
+
+    // exception handler is supposed to either exit or rethrow
+    return null;
+  }
+
+  public CompiledParser parser() {
+    return parser;
+  }
+}
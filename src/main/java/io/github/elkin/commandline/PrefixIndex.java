@@ -0,0 +1,225 @@
+package io.github.elkin.commandline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+final class PrefixIndex {
+
+  static final int NO_ENTRY = -1;
+  private static final int ROOT = 0;
+  private static final int SHORT_TABLE_SIZE = 128;
+  private static final char[] NO_LABELS = new char[0];
+  private static final int[] NO_CHILDREN = new int[0];
+
+  // node -> sorted labels of outgoing edges and the nodes they lead to
+  private final char[][] labels;
+  private final int[][] children;
+  // node -> entry which ends at the node
+  private final int[] entries;
+  // ch -> entry of the short prefix '-' + ch, for ASCII characters
+  private final int[] shortEntries;
+
+  // entry -> registered prefix, its target and the kind of the target
+  private final String[] prefixes;
+  private final int[] targets;
+  private final boolean[] isFlag;
+
+  PrefixIndex(Map<String, Option> optionByPrefix, Map<String, Flag> flagByPrefix) {
+    int numberOfEntries = optionByPrefix.size() + flagByPrefix.size();
+    prefixes = new String[numberOfEntries];
+    targets = new int[numberOfEntries];
+    isFlag = new boolean[numberOfEntries];
+
+    Builder builder = new Builder();
+    int entry = 0;
+    for (Map.Entry<String, Option> option : optionByPrefix.entrySet()) {
+      prefixes[entry] = option.getKey();
+      targets[entry] = option.getValue().index();
+      builder.insert(option.getKey(), entry++);
+    }
+
+    for (Map.Entry<String, Flag> flag : flagByPrefix.entrySet()) {
+      prefixes[entry] = flag.getKey();
+      targets[entry] = flag.getValue().index();
+      isFlag[entry] = true;
+      builder.insert(flag.getKey(), entry++);
+    }
+
+    int numberOfNodes = builder.nodes.size();
+    labels = new char[numberOfNodes][];
+    children = new int[numberOfNodes][];
+    entries = new int[numberOfNodes];
+    for (int node = 0; node < numberOfNodes; ++node) {
+      Builder.Node n = builder.nodes.get(node);
+      labels[node] = n.labels;
+      children[node] = n.children;
+      entries[node] = n.entry;
+    }
+
+    shortEntries = new int[SHORT_TABLE_SIZE];
+    Arrays.fill(shortEntries, NO_ENTRY);
+    int dash = child(ROOT, '-');
+    if (dash != NO_ENTRY) {
+      char[] dashLabels = labels[dash];
+      for (int i = 0; i < dashLabels.length; ++i) {
+        if (dashLabels[i] < SHORT_TABLE_SIZE) {
+          shortEntries[dashLabels[i]] = entries[children[dash][i]];
+        }
+      }
+    }
+  }
+
+  private int child(int node, char label) {
+    char[] nodeLabels = labels[node];
+    int index = Arrays.binarySearch(nodeLabels, label);
+    return index < 0 ? NO_ENTRY : children[node][index];
+  }
+
+  private int walk(String arg, int limit, boolean stopAtEqualSign) {
+    int node = ROOT;
+    for (int i = 0; i < limit; ++i) {
+      char ch = arg.charAt(i);
+      if (stopAtEqualSign && ch == '=') {
+        break;
+      }
+
+      node = child(node, ch);
+      if (node == NO_ENTRY) {
+        return NO_ENTRY;
+      }
+    }
+
+    return entries[node];
+  }
+
+  // Resolves an argument which starts with '-'. Short arguments are matched by
+  // their first two characters, long ones by everything before the first '='.
+  int find(String arg) {
+    assert Util.isOption(arg);
+
+    if (Util.isLongOption(arg)) {
+      return walk(arg, arg.length(), true);
+    }
+    return walk(arg, Math.min(arg.length(), Util.SHORT_OPTION_LENGTH), false);
+  }
+
+  int findExact(String prefix) {
+    return walk(prefix, prefix.length(), false);
+  }
+
+  // Resolves a short prefix '-' + ch without building it
+  int findShort(char ch) {
+    if (ch < SHORT_TABLE_SIZE) {
+      return shortEntries[ch];
+    }
+
+    int node = child(ROOT, '-');
+    if (node == NO_ENTRY) {
+      return NO_ENTRY;
+    }
+
+    node = child(node, ch);
+    return node == NO_ENTRY ? NO_ENTRY : entries[node];
+  }
+
+  // Returns the position where the value attached to the prefix starts or
+  // the length of the argument if there's no attached value
+  int valueOffset(String arg, int entry) {
+    int prefixLength = prefixes[entry].length();
+    if (arg.length() > prefixLength && Util.isLongOption(arg)) {
+      assert arg.charAt(prefixLength) == '=';
+      return prefixLength + 1;
+    }
+    return Math.min(arg.length(), prefixLength);
+  }
+
+  // Returns the prefix an argument is matched by, it's used only to report
+  // unknown prefixes
+  static String prefixOf(String arg) {
+    if (Util.isLongOption(arg)) {
+      int index = arg.indexOf('=');
+      return index < 0 ? arg : arg.substring(0, index);
+    }
+    return arg.length() > Util.SHORT_OPTION_LENGTH
+        ? arg.substring(0, Util.SHORT_OPTION_LENGTH)
+        : arg;
+  }
+
+  int numberOfEntries() {
+    return prefixes.length;
+  }
+
+  String prefix(int entry) {
+    return prefixes[entry];
+  }
+
+  int target(int entry) {
+    return targets[entry];
+  }
+
+  boolean isFlag(int entry) {
+    return isFlag[entry];
+  }
+
+  private static final class Builder {
+
+    private final List<Node> nodes;
+
+    Builder() {
+      nodes = new ArrayList<>();
+      nodes.add(new Node());
+    }
+
+    void insert(String prefix, int entry) {
+      int node = ROOT;
+      for (int i = 0; i < prefix.length(); ++i) {
+        node = nodes.get(node).childOrCreate(prefix.charAt(i), nodes);
+      }
+
+      Node last = nodes.get(node);
+      assert last.entry == NO_ENTRY;
+      last.entry = entry;
+    }
+
+    private static final class Node {
+
+      private char[] labels;
+      private int[] children;
+      private int entry;
+
+      Node() {
+        labels = NO_LABELS;
+        children = NO_CHILDREN;
+        entry = NO_ENTRY;
+      }
+
+      int childOrCreate(char label, List<Node> nodes) {
+        int index = Arrays.binarySearch(labels, label);
+        if (index >= 0) {
+          return children[index];
+        }
+
+        int insertionPoint = -index - 1;
+        int child = nodes.size();
+        nodes.add(new Node());
+
+        char[] newLabels = new char[labels.length + 1];
+        int[] newChildren = new int[children.length + 1];
+        System.arraycopy(labels, 0, newLabels, 0, insertionPoint);
+        System.arraycopy(children, 0, newChildren, 0, insertionPoint);
+        newLabels[insertionPoint] = label;
+        newChildren[insertionPoint] = child;
+        System.arraycopy(labels, insertionPoint, newLabels, insertionPoint + 1,
+            labels.length - insertionPoint);
+        System.arraycopy(children, insertionPoint, newChildren, insertionPoint + 1,
+            children.length - insertionPoint);
+
+        labels = newLabels;
+        children = newChildren;
+        return child;
+      }
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package io.github.elkin.commandline;
+
+public enum RemainderMode {
+  // values of the last argument are kept in the parsing result
+  STORE,
+  // values of the last argument except the first one are checked and passed
+  // to the consumer but only the number of them is kept
+  STREAM,
+  // values of the last argument are kept in direct buffers and decoded
+  // when they're read, so they don't take heap space
+  OFF_HEAP
+}
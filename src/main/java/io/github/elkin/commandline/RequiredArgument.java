@@ -31,12 +31,13 @@ public final class RequiredArgument extends Argument {
   }
 
   @Override
-  void setRemainder(Values remainder) {
-    assert remainder != null;
-    assert !remainder.isEmpty();
+  void setValues(ValuesImpl values) {
+    assert values != null;
+    assert values.size() > 1;
 
-    this.remainder = remainder;
-    values = new ValuesImpl(value, this.remainder);
+    value = values.getFirstValue();
+    remainder = values.subValues(1);
+    this.values = values;
   }
 
   @Override
@@ -51,12 +52,28 @@ public final class RequiredArgument extends Argument {
     return this;
   }
 
+  public RequiredArgument setAsyncConsumer(Consumer<String> consumer) {
+    super.setConsumer(new AsyncConsumer<>(consumer));
+    return this;
+  }
+
   @Override
   public RequiredArgument setDescription(String description) {
     super.setDescription(description);
     return this;
   }
 
+  @Override
+  public ValueType valueType() {
+    return super.valueType();
+  }
+
+  @Override
+  public RequiredArgument setValueType(ValueType valueType) {
+    super.setValueType(valueType);
+    return this;
+  }
+
   public String value() {
     return value;
   }
@@ -69,6 +86,21 @@ public final class RequiredArgument extends Argument {
     return values;
   }
 
+  @Override
+  public IntValues intValues() {
+    return super.intValues();
+  }
+
+  @Override
+  public LongValues longValues() {
+    return super.longValues();
+  }
+
+  @Override
+  public DoubleValues doubleValues() {
+    return super.doubleValues();
+  }
+
   @Override
   public String toString() {
     return String.format(
@@ -0,0 +1,442 @@
+package io.github.elkin.commandline;
+
+import io.github.elkin.commandline.exception.SnapshotException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+
+// Binary layout of a parsed command line, all numbers are big endian:
+//
+//   magic, version, fingerprint of the configuration
+//   number of value slots, number of flags, number of streamed values,
+//   number of strings
+//   flag counts
+//   slot -> 1 if the values are the default ones, a byte per slot
+//   slot -> start of its values in the value table, plus the end
+//   value table: string ids
+//   string table: offsets of strings in the string data, plus the end
+//   numbers of the numeric slots: their count and the primitive values
+//   string data: UTF-8 bytes of distinct strings
+//
+// A mapped snapshot isn't parsed or checked again, strings are decoded
+// when they're read.
+final class Snapshot {
+
+  private static final int MAGIC = 0x434c534e;
+  private static final int VERSION = 2;
+  private static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES + 4 * Integer.BYTES;
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private Snapshot() {
+  }
+
+  private static long hash(long hash, String value) {
+    long result = hash(hash, value.length());
+    for (int i = 0; i < value.length(); ++i) {
+      result = (result ^ value.charAt(i)) * FNV_PRIME;
+    }
+    return result;
+  }
+
+  private static long hash(long hash, int value) {
+    return (hash ^ value) * FNV_PRIME;
+  }
+
+  // Covers everything which defines the layout of the values, i.e. names,
+  // prefixes, types and order of options, flags and arguments. It's taken
+  // from the compiled parser, options and arguments can be changed after
+  // the parser is compiled.
+  static long fingerprint(CompiledParser parser) {
+    long result = FNV_OFFSET_BASIS;
+    int numberOfOptions = parser.options().size();
+    result = hash(result, numberOfOptions);
+    for (int slot = 0; slot < parser.numberOfValueSlots(); ++slot) {
+      result = hash(result, slot < numberOfOptions
+          ? parser.options().get(slot).name()
+          : parser.arguments().get(slot - numberOfOptions).name());
+      result = hash(result, parser.valueType(slot).ordinal());
+      result = hash(result, parser.conversion(slot) == null ? 0 : 1);
+    }
+
+    for (int position = 0; position < parser.arguments().size(); ++position) {
+      result = hash(result, parser.argumentIsRequired(position) ? 1 : 0);
+    }
+
+    result = hash(result, parser.flags().size());
+    for (Flag flag : parser.flags()) {
+      result = hash(result, flag.name());
+    }
+
+    // entries of the index are in no particular order, so they're sorted.
+    // A flag target is negative.
+    PrefixIndex prefixIndex = parser.prefixIndex();
+    Map<String, Integer> targetByPrefix = new TreeMap<>();
+    for (int entry = 0; entry < prefixIndex.numberOfEntries(); ++entry) {
+      int target = prefixIndex.target(entry);
+      targetByPrefix.put(
+          prefixIndex.prefix(entry),
+          prefixIndex.isFlag(entry) ? -1 - target : target);
+    }
+    for (Map.Entry<String, Integer> prefix : targetByPrefix.entrySet()) {
+      result = hash(result, prefix.getKey());
+      result = hash(result, prefix.getValue());
+    }
+
+    return hash(result, parser.remainderMode().ordinal());
+  }
+
+  private static int numberSize(ValueType valueType) {
+    return valueType == ValueType.INT ? Integer.BYTES : Long.BYTES;
+  }
+
+  private static int sizeOf(NumberValues numbers, ValueType valueType) {
+    switch (valueType) {
+      case INT:
+        return numbers.intValues().size();
+      case LONG:
+        return numbers.longValues().size();
+      default:
+        return numbers.doubleValues().size();
+    }
+  }
+
+  private static void putNumbers(ByteBuffer buffer, NumberValues numbers, ValueType valueType) {
+    switch (valueType) {
+      case INT:
+        IntValues ints = numbers.intValues();
+        buffer.putInt(ints.size());
+        for (int i = 0; i < ints.size(); ++i) {
+          buffer.putInt(ints.getValue(i));
+        }
+        break;
+      case LONG:
+        LongValues longs = numbers.longValues();
+        buffer.putInt(longs.size());
+        for (int i = 0; i < longs.size(); ++i) {
+          buffer.putLong(longs.getValue(i));
+        }
+        break;
+      default:
+        DoubleValues doubles = numbers.doubleValues();
+        buffer.putInt(doubles.size());
+        for (int i = 0; i < doubles.size(); ++i) {
+          buffer.putDouble(doubles.getValue(i));
+        }
+        break;
+    }
+  }
+
+  static void write(CompiledParser parser,
+      Values[] values,
+      NumberValues[] numbers,
+      int[] flagCounts,
+      int numberOfStreamedValues,
+      boolean[] isDefault,
+      WritableByteChannel channel) throws IOException {
+    // equal strings are written once
+    Map<String, Integer> ids = new HashMap<>();
+    List<byte[]> strings = new ArrayList<>();
+    long stringDataSize = 0;
+    int numberOfValues = 0;
+    for (Values slotValues : values) {
+      for (String value : slotValues) {
+        if (!ids.containsKey(value)) {
+          byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+          ids.put(value, strings.size());
+          strings.add(bytes);
+          stringDataSize += bytes.length;
+        }
+      }
+      numberOfValues += slotValues.size();
+    }
+
+    long size = HEADER_SIZE
+        + (long) Integer.BYTES * flagCounts.length
+        + isDefault.length
+        + (long) Integer.BYTES * (values.length + 1)
+        + (long) Integer.BYTES * numberOfValues
+        + (long) Integer.BYTES * (strings.size() + 1)
+        + stringDataSize;
+    for (int slot = 0; slot < values.length; ++slot) {
+      ValueType valueType = parser.valueType(slot);
+      if (valueType != ValueType.STRING) {
+        size += Integer.BYTES + (long) numberSize(valueType) * sizeOf(numbers[slot], valueType);
+      }
+    }
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Command line is too big for a snapshot");
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate((int) size);
+    buffer.putInt(MAGIC);
+    buffer.putInt(VERSION);
+    buffer.putLong(fingerprint(parser));
+    buffer.putInt(values.length);
+    buffer.putInt(flagCounts.length);
+    buffer.putInt(numberOfStreamedValues);
+    buffer.putInt(strings.size());
+    for (int count : flagCounts) {
+      buffer.putInt(count);
+    }
+    for (boolean slotIsDefault : isDefault) {
+      buffer.put((byte) (slotIsDefault ? 1 : 0));
+    }
+
+    int start = 0;
+    for (Values slotValues : values) {
+      buffer.putInt(start);
+      start += slotValues.size();
+    }
+    buffer.putInt(start);
+
+    for (Values slotValues : values) {
+      for (String value : slotValues) {
+        buffer.putInt(ids.get(value));
+      }
+    }
+
+    int offset = 0;
+    for (byte[] string : strings) {
+      buffer.putInt(offset);
+      offset += string.length;
+    }
+    buffer.putInt(offset);
+
+    for (int slot = 0; slot < values.length; ++slot) {
+      ValueType valueType = parser.valueType(slot);
+      if (valueType != ValueType.STRING) {
+        putNumbers(buffer, numbers[slot], valueType);
+      }
+    }
+
+    for (byte[] string : strings) {
+      buffer.put(string);
+    }
+    assert !buffer.hasRemaining();
+
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static SnapshotException invalid(String message, Path path) {
+    return new SnapshotException(String.format("%s in snapshot %s", message, path));
+  }
+
+  // Skips a table of ints, returns its start. The size is checked before the
+  // position is moved, so a damaged size doesn't overflow.
+  private static int skipTable(ByteBuffer buffer, int size) {
+    int start = buffer.position();
+    if (size < 0 || (long) size * Integer.BYTES > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    buffer.position(start + size * Integer.BYTES);
+    return start;
+  }
+
+  private static NumberValues readNumbers(ByteBuffer buffer, ValueType valueType) {
+    int size = buffer.getInt();
+    if (size < 0 || (long) size * numberSize(valueType) > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+
+    switch (valueType) {
+      case INT:
+        int[] ints = new int[size];
+        buffer.asIntBuffer().get(ints);
+        buffer.position(buffer.position() + size * Integer.BYTES);
+        return NumberValues.of(ints);
+      case LONG:
+        long[] longs = new long[size];
+        buffer.asLongBuffer().get(longs);
+        buffer.position(buffer.position() + size * Long.BYTES);
+        return NumberValues.of(longs);
+      default:
+        double[] doubles = new double[size];
+        buffer.asDoubleBuffer().get(doubles);
+        buffer.position(buffer.position() + size * Double.BYTES);
+        return NumberValues.of(doubles);
+    }
+  }
+
+  static CommandLine map(CompiledParser parser, Path path) throws IOException {
+    ByteBuffer buffer;
+    // the mapping stays valid after the channel is closed
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw invalid("Wrong size", path);
+      }
+      buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    try {
+      if (buffer.getInt() != MAGIC) {
+        throw invalid("Wrong magic number", path);
+      }
+      if (buffer.getInt() != VERSION) {
+        throw invalid("Unsupported version", path);
+      }
+      if (buffer.getLong() != fingerprint(parser)) {
+        throw invalid("Another configuration is used", path);
+      }
+
+      int numberOfSlots = buffer.getInt();
+      int numberOfFlags = buffer.getInt();
+      int numberOfStreamedValues = buffer.getInt();
+      int numberOfStrings = buffer.getInt();
+      if (numberOfSlots != parser.numberOfValueSlots()
+          || numberOfFlags != parser.flags().size()
+          || numberOfStreamedValues < 0
+          || numberOfStrings < 0) {
+        throw invalid("Wrong header", path);
+      }
+
+      int[] flagCounts = new int[numberOfFlags];
+      buffer.asIntBuffer().get(flagCounts);
+      buffer.position(buffer.position() + numberOfFlags * Integer.BYTES);
+      boolean[] isDefault = new boolean[numberOfSlots];
+      for (int slot = 0; slot < numberOfSlots; ++slot) {
+        isDefault[slot] = buffer.get() != 0;
+      }
+
+      int slotStarts = skipTable(buffer, numberOfSlots);
+      int numberOfValues = buffer.getInt();
+      int valueTable = skipTable(buffer, numberOfValues);
+      int stringOffsets = skipTable(buffer, numberOfStrings);
+      int stringDataSize = buffer.getInt();
+
+      NumberValues[] numbers = new NumberValues[numberOfSlots];
+      for (int slot = 0; slot < numberOfSlots; ++slot) {
+        ValueType valueType = parser.valueType(slot);
+        if (valueType != ValueType.STRING) {
+          numbers[slot] = readNumbers(buffer, valueType);
+        }
+      }
+
+      int stringData = buffer.position();
+      if (stringDataSize != buffer.remaining()) {
+        throw invalid("Wrong size", path);
+      }
+
+      // strings are read lazily, so ids and offsets are checked here rather
+      // than fail when a value is read
+      for (int i = 0; i < numberOfValues; ++i) {
+        int id = buffer.getInt(valueTable + i * Integer.BYTES);
+        if (id < 0 || id >= numberOfStrings) {
+          throw invalid("Wrong string id", path);
+        }
+      }
+
+      int previousOffset = 0;
+      for (int id = 0; id <= numberOfStrings; ++id) {
+        int offset = buffer.getInt(stringOffsets + id * Integer.BYTES);
+        if (offset < previousOffset || offset > stringDataSize) {
+          throw invalid("Wrong string table", path);
+        }
+        previousOffset = offset;
+      }
+
+      Strings strings = new Strings(buffer, stringOffsets, stringData);
+      Values[] values = new Values[numberOfSlots];
+      List<?>[] converted = new List<?>[numberOfSlots];
+      for (int slot = 0; slot < numberOfSlots; ++slot) {
+        int start = buffer.getInt(slotStarts + slot * Integer.BYTES);
+        int end = buffer.getInt(slotStarts + (slot + 1) * Integer.BYTES);
+        if (start < 0 || start > end || end > numberOfValues) {
+          throw invalid("Wrong value table", path);
+        }
+
+        SlotValues slotValues = new SlotValues(
+            buffer, strings, valueTable + start * Integer.BYTES, end - start);
+        values[slot] = new ValuesImpl(slotValues);
+        Conversion<?> conversion = parser.conversion(slot);
+        converted[slot] = conversion == null
+            ? Collections.emptyList()
+            : new ConvertedValues(conversion, slotValues);
+      }
+
+      return new CommandLine(
+          parser,
+          values,
+          numbers,
+          converted,
+          flagCounts,
+          numberOfStreamedValues,
+          isDefault);
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      SnapshotException exception = invalid("Truncated data", path);
+      exception.initCause(e);
+      throw exception;
+    }
+  }
+
+  // Strings of the string table, a string is decoded every time it's read
+  private static final class Strings {
+
+    private final ByteBuffer buffer;
+    private final int offsets;
+    private final int data;
+
+    Strings(ByteBuffer buffer, int offsets, int data) {
+      this.buffer = buffer;
+      this.offsets = offsets;
+      this.data = data;
+    }
+
+    String get(int id) {
+      int start = buffer.getInt(offsets + id * Integer.BYTES);
+      int end = buffer.getInt(offsets + (id + 1) * Integer.BYTES);
+
+      // the buffer is shared, so it's read through a duplicate
+      ByteBuffer string = buffer.duplicate();
+      string.position(data + start);
+      byte[] bytes = new byte[end - start];
+      string.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+
+  private static final class SlotValues extends AbstractList<String> implements RandomAccess {
+
+    private final ByteBuffer buffer;
+    private final Strings strings;
+    private final int ids;
+    private final int size;
+
+    SlotValues(ByteBuffer buffer, Strings strings, int ids, int size) {
+      this.buffer = buffer;
+      this.strings = strings;
+      this.ids = ids;
+      this.size = size;
+    }
+
+    @Override
+    public String get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+      }
+      return strings.get(buffer.getInt(ids + index * Integer.BYTES));
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
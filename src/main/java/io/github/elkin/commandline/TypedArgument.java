@@ -0,0 +1,74 @@
+package io.github.elkin.commandline;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+public final class TypedArgument<T> {
+
+  private final Argument argument;
+  private final Conversion<T> conversion;
+
+  TypedArgument(Argument argument, Converter<? extends T> converter) {
+    assert argument != null;
+    assert converter != null;
+
+    this.argument = argument;
+    conversion = new Conversion<>(converter);
+    argument.setConversion(conversion);
+  }
+
+  public Argument argument() {
+    return argument;
+  }
+
+  public String name() {
+    return argument.name();
+  }
+
+  public boolean isRequired() {
+    return argument.isRequired();
+  }
+
+  // The checker gets converted values
+  public TypedArgument<T> setChecker(Predicate<? super T> checker) {
+    conversion.setChecker(checker);
+    return this;
+  }
+
+  // The consumer gets converted values
+  public TypedArgument<T> setConsumer(Consumer<? super T> consumer) {
+    conversion.setConsumer(consumer);
+    return this;
+  }
+
+  public TypedArgument<T> setAsyncConsumer(Consumer<? super T> consumer) {
+    conversion.setConsumer(new AsyncConsumer<>(consumer));
+    return this;
+  }
+
+  public TypedArgument<T> addDefaultValue(String value) {
+    argument.addDefaultValue(value);
+    return this;
+  }
+
+  public TypedArgument<T> setDescription(String description) {
+    argument.setDescription(description);
+    return this;
+  }
+
+  public Optional<T> value() {
+    List<T> values = conversion.values();
+    return values.isEmpty() ? Optional.empty() : Optional.of(values.get(0));
+  }
+
+  public List<T> values() {
+    return conversion.values();
+  }
+
+  @Override
+  public String toString() {
+    return argument.toString();
+  }
+}
@@ -0,0 +1,90 @@
+package io.github.elkin.commandline;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+public final class TypedOption<T> {
+
+  private final Option option;
+  private final Conversion<T> conversion;
+
+  TypedOption(Option option, Converter<? extends T> converter) {
+    assert option != null;
+    assert converter != null;
+
+    this.option = option;
+    conversion = new Conversion<>(converter);
+    option.setConversion(conversion);
+  }
+
+  public Option option() {
+    return option;
+  }
+
+  public String name() {
+    return option.name();
+  }
+
+  public Set<String> prefixes() {
+    return option.prefixes();
+  }
+
+  public TypedOption<T> addPrefix(String prefix) {
+    option.addPrefix(prefix);
+    return this;
+  }
+
+  // The checker gets converted values
+  public TypedOption<T> setChecker(Predicate<? super T> checker) {
+    conversion.setChecker(checker);
+    return this;
+  }
+
+  // The consumer gets converted values
+  public TypedOption<T> setConsumer(Consumer<? super T> consumer) {
+    conversion.setConsumer(consumer);
+    return this;
+  }
+
+  public TypedOption<T> setAsyncConsumer(Consumer<? super T> consumer) {
+    conversion.setConsumer(new AsyncConsumer<>(consumer));
+    return this;
+  }
+
+  public TypedOption<T> setMaxNumberOfValues(int maxNumberOfValues) {
+    option.setMaxNumberOfValues(maxNumberOfValues);
+    return this;
+  }
+
+  public TypedOption<T> require() {
+    option.require();
+    return this;
+  }
+
+  public TypedOption<T> addDefaultValue(String value) {
+    option.addDefaultValue(value);
+    return this;
+  }
+
+  public TypedOption<T> setDescription(String description) {
+    option.setDescription(description);
+    return this;
+  }
+
+  public Optional<T> value() {
+    List<T> values = conversion.values();
+    return values.isEmpty() ? Optional.empty() : Optional.of(values.get(0));
+  }
+
+  public List<T> values() {
+    return conversion.values();
+  }
+
+  @Override
+  public String toString() {
+    return option.toString();
+  }
+}
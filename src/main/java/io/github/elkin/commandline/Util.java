@@ -1,26 +1,40 @@
 package io.github.elkin.commandline;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
 import java.util.function.Predicate;
-import java.util.regex.Pattern;
 
 public class Util {
 
   static final int SHORT_OPTION_LENGTH = 2;
-  private static final Pattern NATURAL_INTERER = Pattern.compile("\\d+");
-  private static final Pattern POSITIVE_INTEGER = Pattern.compile("[1-9]\\d*");
-  private static final Pattern INTEGER = Pattern.compile("-?\\d+");
+  static final long NOT_A_LONG = Long.MIN_VALUE;
+  private static final String LONG_MIN_DIGITS = "9223372036854775808";
   private static final Predicate<String> IS_NATURAL_NUMBER =
-      value -> NATURAL_INTERER.matcher(value).matches();
+      value -> isDigits(value, 0);
   private static final Predicate<String> IS_POSITIVE_INTEGER =
-      value -> POSITIVE_INTEGER.matcher(value).matches();
+      value -> !value.isEmpty() && value.charAt(0) != '0' && isDigits(value, 0);
   private static final Predicate<String> IS_INTEGER =
-      value -> INTEGER.matcher(value).matches();
+      value -> isDigits(value, value.startsWith("-") ? 1 : 0);
+  private static final Predicate<String> IS_INT =
+      value -> isLong(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+  private static final Predicate<String> IS_LONG =
+      value -> isLong(value, Long.MIN_VALUE, Long.MAX_VALUE);
+  private static final Predicate<String> IS_DOUBLE = Util::isDouble;
+  private static final Consumer<Object> EMPTY_CONSUMER = value -> {
+  };
   private static final ExceptionHandler RETHROW_EXCEPTION_HANDLER = (exception, configuration, args) -> {
     throw exception;
   };
@@ -40,47 +54,129 @@ public class Util {
     return IS_INTEGER;
   }
 
+  // Unlike isInteger() the value has to fit in int, '+' sign is allowed
+  public static Predicate<String> isInt() {
+    return IS_INT;
+  }
+
+  public static Predicate<String> isLong() {
+    return IS_LONG;
+  }
+
+  // Decimal notation only, e.g. 1, -1.5, .5, 1e-3
+  public static Predicate<String> isDouble() {
+    return IS_DOUBLE;
+  }
+
+  public static Predicate<String> intInRange(int min, int max) {
+    checkRange(min <= max);
+    return value -> isLong(value, min, max);
+  }
+
+  public static Predicate<String> longInRange(long min, long max) {
+    checkRange(min <= max);
+    return value -> isLong(value, min, max);
+  }
+
+  public static Predicate<String> doubleInRange(double min, double max) {
+    checkRange(min <= max);
+    // NaN fails both comparisons
+    return value -> {
+      double number = parseDouble(value);
+      return number >= min && number <= max;
+    };
+  }
+
   public static Consumer<String> fromIntConsumer(Consumer<Integer> consumer) {
     // Please check if int can be parsed from string beforehand with a dedicated checker
     return value -> consumer.accept(Integer.parseInt(value));
   }
 
+  // Values are supposed to be checked with isInt() or intInRange() beforehand,
+  // parsing of a valid value doesn't allocate anything. If the option or
+  // argument has the same value type, the number it's parsed into is passed
+  // and the value isn't parsed again.
+  public static Consumer<String> intConsumer(IntConsumer consumer) {
+    return NumberConsumer.ofInts(Objects.requireNonNull(consumer));
+  }
+
+  public static Consumer<String> longConsumer(LongConsumer consumer) {
+    return NumberConsumer.ofLongs(Objects.requireNonNull(consumer));
+  }
+
+  public static Consumer<String> doubleConsumer(DoubleConsumer consumer) {
+    return NumberConsumer.ofDoubles(Objects.requireNonNull(consumer));
+  }
+
   public static Predicate<String> choice(String... values) {
-    return value -> {
-      // though it's a linear search but it works fast enough on small number of values
-      for (String v : values) {
-        if (v.equals(value)) {
-          return true;
-        }
-      }
+    return new HashChoice(Arrays.asList(values));
+  }
 
-      return false;
-    };
+  // Checks the value is a name of one of the enum constants
+  public static <E extends Enum<E>> Predicate<String> choice(Class<E> type) {
+    List<String> names = new ArrayList<>();
+    for (E constant : type.getEnumConstants()) {
+      names.add(constant.name());
+    }
+    return new HashChoice(names);
   }
 
+  // The collection is checked directly, so the lookup is as fast as its
+  // contains(), see hashChoice() for a lookup which doesn't depend on it
   public static Predicate<String> choice(Collection<String> values) {
     return values::contains;
   }
 
+  // Copies the values into a hash table with O(1) lookup, later changes of
+  // the collection aren't seen by the checker
+  public static Predicate<String> hashChoice(Collection<String> values) {
+    return new HashChoice(values);
+  }
+
+  // Checks the value is one of the lines of the file, lines have to be sorted
+  // by bytes, e.g. with LC_ALL=C sort. The values aren't loaded to the heap.
+  public static Predicate<String> fileChoice(Path sortedFile) throws IOException {
+    return new FileChoice(Objects.requireNonNull(sortedFile));
+  }
+
   public static HelpRequestHandler makeHelpRequestHandler(int exitCode, OutputStream stream) {
+    return makeHelpRequestHandler(exitCode, stream, System::exit);
+  }
+
+  // The stream is flushed but not closed, the exit action gets the exit code
+  // and isn't supposed to return, e.g. it throws to leave the parser
+  public static HelpRequestHandler makeHelpRequestHandler(int exitCode,
+      OutputStream stream,
+      IntConsumer exit) {
+    Objects.requireNonNull(stream);
+    Objects.requireNonNull(exit);
+
     return (configuration, args) -> {
-      try (PrintWriter writer = new PrintWriter(
-          new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
-        writer.println(configuration);
-      }
-      System.exit(exitCode);
+      PrintWriter writer = new PrintWriter(
+          new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+      writer.println(configuration);
+      writer.flush();
+      exit.accept(exitCode);
     };
   }
 
   public static ExceptionHandler makeExceptionHandler(int exitCode, OutputStream stream) {
+    return makeExceptionHandler(exitCode, stream, System::exit);
+  }
+
+  public static ExceptionHandler makeExceptionHandler(int exitCode,
+      OutputStream stream,
+      IntConsumer exit) {
+    Objects.requireNonNull(stream);
+    Objects.requireNonNull(exit);
+
     return (e, configuration, args) -> {
-      try (PrintWriter writer = new PrintWriter(
-          new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
-        writer.println(e.getMessage());
-        writer.println(configuration);
-        writer.flush();
-      }
-      System.exit(exitCode);
+      PrintWriter writer = new PrintWriter(
+          new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+      writer.println(e.getMessage());
+      writer.println(configuration);
+      writer.flush();
+      exit.accept(exitCode);
     };
   }
 
@@ -88,9 +184,151 @@ public class Util {
     return RETHROW_EXCEPTION_HANDLER;
   }
 
+  private static void checkRange(boolean isValid) {
+    if (!isValid) {
+      throw new IllegalArgumentException("min can't be greater than max");
+    }
+  }
+
+  private static boolean isDigit(char ch) {
+    return ch >= '0' && ch <= '9';
+  }
+
+  // Checks there's at least one digit from the position and nothing else
+  private static boolean isDigits(String value, int from) {
+    int length = value.length();
+    if (from >= length) {
+      return false;
+    }
+
+    for (int i = from; i < length; ++i) {
+      if (!isDigit(value.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Parses a decimal integer in [min, max] without creating objects. The
+  // number is accumulated as a negative one, so the overflow is detected for
+  // Long.MIN_VALUE as well. Returns NOT_A_LONG if the value isn't such a
+  // number, the sentinel is a valid long too, isLongMinValue() tells them
+  // apart when min is Long.MIN_VALUE.
+  static long parseLong(String value, long min, long max) {
+    int length = value.length();
+    if (length == 0) {
+      return NOT_A_LONG;
+    }
+
+    int i = 0;
+    boolean isNegative = false;
+    char first = value.charAt(0);
+    if (first == '-' || first == '+') {
+      isNegative = first == '-';
+      if (++i == length) {
+        return NOT_A_LONG;
+      }
+    }
+
+    long limit = isNegative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long multiplicationLimit = limit / 10;
+    long result = 0;
+    for (; i < length; ++i) {
+      char ch = value.charAt(i);
+      if (!isDigit(ch) || result < multiplicationLimit) {
+        return NOT_A_LONG;
+      }
+
+      int digit = ch - '0';
+      result *= 10;
+      if (result < limit + digit) {
+        return NOT_A_LONG;
+      }
+      result -= digit;
+    }
+
+    long number = isNegative ? result : -result;
+    return number >= min && number <= max ? number : NOT_A_LONG;
+  }
+
+  // Checks the value is Long.MIN_VALUE, i.e. the sentinel of parseLong() is
+  // the parsed number rather than a failure
+  static boolean isLongMinValue(String value) {
+    if (value.isEmpty() || value.charAt(0) != '-') {
+      return false;
+    }
+
+    int i = 1;
+    while (i < value.length() - 1 && value.charAt(i) == '0') {
+      ++i;
+    }
+    return value.length() - i == LONG_MIN_DIGITS.length()
+        && value.startsWith(LONG_MIN_DIGITS, i);
+  }
+
+  static boolean isLong(String value, long min, long max) {
+    return parseLong(value, min, max) != NOT_A_LONG
+        || min == Long.MIN_VALUE && isLongMinValue(value);
+  }
+
+  static boolean isInt(String value) {
+    return isLong(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+  }
+
+  // Returns NaN if the value isn't a number in decimal notation, a valid
+  // value is never parsed to NaN. The JDK parses the value, since a correctly
+  // rounded conversion isn't something to repeat here.
+  static double parseDouble(String value) {
+    return isDouble(value) ? Double.parseDouble(value) : Double.NaN;
+  }
+
+  // [+-]?(digits[.digits?]|.digits)([eE][+-]?digits)?
+  static boolean isDouble(String value) {
+    int length = value.length();
+    int i = 0;
+    if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+      ++i;
+    }
+
+    int digits = 0;
+    while (i < length && isDigit(value.charAt(i))) {
+      ++i;
+      ++digits;
+    }
+
+    if (i < length && value.charAt(i) == '.') {
+      ++i;
+      while (i < length && isDigit(value.charAt(i))) {
+        ++i;
+        ++digits;
+      }
+    }
+
+    if (digits == 0) {
+      return false;
+    }
+
+    if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+      ++i;
+      if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+        ++i;
+      }
+      if (!isDigits(value, i)) {
+        return false;
+      }
+      i = length;
+    }
+
+    return i == length;
+  }
+
+  @SuppressWarnings("unchecked")
   static <T> Consumer<T> empty() {
-    return value -> {
-    };
+    return (Consumer<T>) EMPTY_CONSUMER;
+  }
+
+  static boolean isEmpty(Consumer<?> consumer) {
+    return consumer == EMPTY_CONSUMER;
   }
 
   static boolean isOption(String prefix) {
@@ -6,4 +6,14 @@ import java.util.List;
 public interface Validator {
 
   void validate(List<Argument> arguments, List<Option> options, List<Flag> flags);
+
+  // Called for every parsed command line. Options and flags of the
+  // configuration get values only in CommandLine.getCommandLine(), so other
+  // parses, e.g. CompiledParser.parse(), ParseContext, BatchParser or
+  // CommandServer, throw IllegalStateException before anything is parsed if
+  // a validator doesn't implement this method.
+  default void validate(CommandLine commandLine) {
+    CompiledParser parser = commandLine.parser();
+    validate(parser.arguments(), parser.options(), parser.flags());
+  }
 }
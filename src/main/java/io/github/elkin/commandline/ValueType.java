@@ -0,0 +1,11 @@
+package io.github.elkin.commandline;
+
+public enum ValueType {
+  // values are kept as they are
+  STRING,
+  // values are parsed once while the command line is parsed and kept in
+  // primitive arrays, a value which can't be parsed fails the check
+  INT,
+  LONG,
+  DOUBLE
+}
@@ -11,7 +11,7 @@ import java.util.stream.Stream;
 class ValuesImpl implements Values {
 
   private static final ValuesImpl EMPTY = new ValuesImpl(Collections.emptyList());
-  private List<String> values;
+  private final List<String> values;
 
   ValuesImpl(String value) {
     assert value != null;
@@ -26,21 +26,18 @@ class ValuesImpl implements Values {
     this.values = Collections.unmodifiableList(values);
   }
 
-  ValuesImpl(String firstValue, Values remainder) {
-    assert firstValue != null;
-    assert !firstValue.isEmpty();
-    assert remainder != null;
-
-    values = new ArrayList<>(1 + remainder.size());
-    values.add(firstValue);
-    remainder.toList(values);
-    values = Collections.unmodifiableList(values);
-  }
-
   static ValuesImpl empty() {
     return EMPTY;
   }
 
+  // Returns a view of the values starting from the index, nothing is copied
+  ValuesImpl subValues(int from) {
+    assert from >= 0;
+    assert from <= size();
+
+    return new ValuesImpl(values.subList(from, values.size()));
+  }
+
   @Override
   public String getFirstValue() {
     return values.get(0);
@@ -6,10 +6,11 @@ import io.github.elkin.commandline.Flag;
 import io.github.elkin.commandline.Option;
 import io.github.elkin.commandline.RequiredArgument;
 import io.github.elkin.commandline.Util;
+import io.github.elkin.commandline.ValueType;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
-import java.util.function.BinaryOperator;
+import java.util.OptionalInt;
+import java.util.function.IntBinaryOperator;
 import java.util.stream.Collectors;
 
 public class SimpleCalculator {
@@ -22,7 +23,7 @@ public class SimpleCalculator {
     CommandLineConfiguration configuration = new CommandLineConfiguration();
     RequiredArgument argument = configuration.addRequiredArgument("numbers")
         .setDescription("Integer number")
-        .setChecker(Util.isInteger())
+        .setValueType(ValueType.INT)
         .addDefaultValue("0");
 
     Option option = configuration.addOption("operation", "-o")
@@ -41,7 +42,7 @@ public class SimpleCalculator {
     assert option.value().isPresent();
     String operation = option.value().get();
 
-    Map<String, BinaryOperator<Integer>> operators = new HashMap<>();
+    Map<String, IntBinaryOperator> operators = new HashMap<>();
     operators.put(SUM, (lhs, rhs) -> lhs + rhs);
     operators.put(PROD, (lhs, rhs) -> lhs * rhs);
     operators.put(SUB, (lhs, rhs) -> lhs - rhs);
@@ -67,9 +68,8 @@ public class SimpleCalculator {
       output.append(" = ");
     }
 
-    Optional<Integer> result = argument.values()
+    OptionalInt result = argument.intValues()
         .stream()
-        .map(Integer::parseInt)
         .reduce(operators.get(operation));
     result.ifPresent(output::append);
     System.out.println(output.toString());
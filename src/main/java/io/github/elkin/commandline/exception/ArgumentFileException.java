@@ -0,0 +1,13 @@
+package io.github.elkin.commandline.exception;
+
+@SuppressWarnings("serial")
+public class ArgumentFileException extends CommandLineException {
+
+  public ArgumentFileException(String message) {
+    super(message);
+  }
+
+  public ArgumentFileException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,9 @@
+package io.github.elkin.commandline.exception;
+
+@SuppressWarnings("serial")
+public class ArgumentReadException extends CommandLineException {
+
+  public ArgumentReadException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
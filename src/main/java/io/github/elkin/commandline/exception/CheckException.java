@@ -6,4 +6,8 @@ public class CheckException extends CommandLineException {
   public CheckException(String message) {
     super(message);
   }
+
+  public CheckException(String message, Throwable cause) {
+    super(message, cause);
+  }
 }
@@ -0,0 +1,9 @@
+package io.github.elkin.commandline.exception;
+
+@SuppressWarnings("serial")
+public class ConsumerException extends CommandLineException {
+
+  public ConsumerException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,9 @@
+package io.github.elkin.commandline.exception;
+
+@SuppressWarnings("serial")
+public class SnapshotException extends CommandLineException {
+
+  public SnapshotException(String message) {
+    super(message);
+  }
+}
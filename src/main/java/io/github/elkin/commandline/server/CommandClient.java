@@ -0,0 +1,101 @@
+package io.github.elkin.commandline.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Objects;
+
+// Launcher of commands served by CommandServer, e.g.
+// java -cp commandline.jar io.github.elkin.commandline.server.CommandClient 4000 server.token calc -o sum 1 2
+// The first argument is a loopback port or a path of a UNIX domain socket,
+// the second one is the token file of the server.
+// Output of the command is copied to stdout and stderr, the launcher exits
+// with the exit code of the command.
+public final class CommandClient {
+
+  public static final int CONNECTION_EXIT_CODE = 2;
+
+  private CommandClient() {
+  }
+
+  public static int runLoopback(int port,
+      Path tokenFile,
+      String[] argv,
+      OutputStream out,
+      OutputStream err) throws IOException {
+    byte[] token = SessionToken.read(tokenFile);
+    return run(
+        SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port)),
+        token,
+        argv,
+        out,
+        err);
+  }
+
+  public static int runUnix(Path path,
+      Path tokenFile,
+      String[] argv,
+      OutputStream out,
+      OutputStream err) throws IOException {
+    Objects.requireNonNull(path);
+
+    byte[] token = SessionToken.read(tokenFile);
+    return run(UnixSockets.connect(path), token, argv, out, err);
+  }
+
+  private static int run(SocketChannel channel,
+      byte[] token,
+      String[] argv,
+      OutputStream out,
+      OutputStream err) throws IOException {
+    try (SocketChannel connection = channel) {
+      Objects.requireNonNull(argv);
+      Objects.requireNonNull(out);
+      Objects.requireNonNull(err);
+
+      Frames.writeRequest(
+          new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(connection))),
+          token,
+          argv);
+      return Frames.readResponse(
+          new DataInputStream(new BufferedInputStream(Channels.newInputStream(connection))),
+          out,
+          err);
+    }
+  }
+
+  private static boolean isPort(String address) {
+    return !address.isEmpty() && address.chars().allMatch(Character::isDigit);
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 3) {
+      System.err.println(
+          "Usage: CommandClient <port|socket path> <token file> <command> [args...]");
+      System.exit(CONNECTION_EXIT_CODE);
+    }
+
+    Path tokenFile = Paths.get(args[1]);
+    String[] argv = Arrays.copyOfRange(args, 2, args.length);
+    int exitCode;
+    try {
+      exitCode = isPort(args[0])
+          ? runLoopback(Integer.parseInt(args[0]), tokenFile, argv, System.out, System.err)
+          : runUnix(Paths.get(args[0]), tokenFile, argv, System.out, System.err);
+    } catch (IOException | UnsupportedOperationException | NumberFormatException e) {
+      System.err.println(String.format("Can't run the command at <%s>: %s", args[0], e));
+      exitCode = CONNECTION_EXIT_CODE;
+    }
+    System.exit(exitCode);
+  }
+}
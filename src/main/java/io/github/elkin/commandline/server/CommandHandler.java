@@ -0,0 +1,11 @@
+package io.github.elkin.commandline.server;
+
+import io.github.elkin.commandline.CommandLine;
+import java.io.PrintStream;
+
+@FunctionalInterface
+public interface CommandHandler {
+
+  // Returns the exit code of the command, the streams are sent to the client
+  int handle(CommandLine commandLine, PrintStream out, PrintStream err) throws Exception;
+}
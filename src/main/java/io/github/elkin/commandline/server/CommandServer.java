@@ -0,0 +1,340 @@
+package io.github.elkin.commandline.server;
+
+import io.github.elkin.commandline.CommandLine;
+import io.github.elkin.commandline.CompiledParser;
+import io.github.elkin.commandline.ExceptionHandler;
+import io.github.elkin.commandline.HelpRequestHandler;
+import io.github.elkin.commandline.Util;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Serves commands in a running JVM, so a command doesn't pay for the start
+// of a JVM and the warm up of its parser. A client sends argv, the first
+// string is the name of a registered command and the rest are its args.
+// The server parses the args with the compiled parser of the command, calls
+// its handler and sends back stdout, stderr and the exit code. Help requests
+// and parse errors are reported with exit codes, nothing exits the JVM.
+// Every request carries the token of the server, which is written to a file
+// readable by its owner only, so other users of the host can't run commands.
+// A client has a deadline to send its request and the number of connections
+// which are served at once is limited, so idle connections can't take up
+// the threads of the server.
+public final class CommandServer implements Closeable {
+
+  public static final int HELP_EXIT_CODE = 0;
+  public static final int ERROR_EXIT_CODE = 1;
+  public static final int UNKNOWN_COMMAND_EXIT_CODE = 127;
+  public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+  public static final int DEFAULT_MAX_CONNECTIONS = 64;
+
+  private final Executor executor;
+  private final Map<String, Command> commands;
+  private final List<ServerSocketChannel> channels;
+  private final List<Path> socketFiles;
+  private final List<Path> tokenFiles;
+  private final byte[] token;
+  private final ScheduledThreadPoolExecutor deadlines;
+  private final AtomicInteger numberOfConnections;
+  private long requestTimeoutNanos;
+  private int maxConnections;
+
+  public CommandServer() {
+    this(CommandServer::startDaemon);
+  }
+
+  // Connections are served by the executor, one task per connection
+  public CommandServer(Executor executor) {
+    this.executor = Objects.requireNonNull(executor);
+    commands = new ConcurrentHashMap<>();
+    channels = new CopyOnWriteArrayList<>();
+    socketFiles = new CopyOnWriteArrayList<>();
+    tokenFiles = new CopyOnWriteArrayList<>();
+    token = SessionToken.generate();
+    deadlines = new ScheduledThreadPoolExecutor(1, CommandServer::newDaemon);
+    deadlines.setRemoveOnCancelPolicy(true);
+    numberOfConnections = new AtomicInteger();
+    requestTimeoutNanos = DEFAULT_REQUEST_TIMEOUT.toNanos();
+    maxConnections = DEFAULT_MAX_CONNECTIONS;
+  }
+
+  private static Thread newDaemon(Runnable task) {
+    Thread thread = new Thread(task, "commandline-server");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private static void startDaemon(Runnable task) {
+    newDaemon(task).start();
+  }
+
+  // A connection which doesn't send its request in time is closed. It's set
+  // before the server is started.
+  public CommandServer setRequestTimeout(Duration timeout) {
+    Objects.requireNonNull(timeout);
+    if (timeout.isNegative() || timeout.isZero()) {
+      throw new IllegalArgumentException("Request timeout has to be positive");
+    }
+
+    requestTimeoutNanos = timeout.toNanos();
+    return this;
+  }
+
+  // Connections over the limit are closed without a response. It's set
+  // before the server is started.
+  public CommandServer setMaxConnections(int maxConnections) {
+    if (maxConnections < 1) {
+      throw new IllegalArgumentException("maxConnections can't be less than 1");
+    }
+
+    this.maxConnections = maxConnections;
+    return this;
+  }
+
+  public static boolean isUnixSocketSupported() {
+    return UnixSockets.isSupported();
+  }
+
+  public CommandServer register(String name, CompiledParser parser, CommandHandler handler) {
+    Objects.requireNonNull(name);
+    Objects.requireNonNull(parser);
+    Objects.requireNonNull(handler);
+
+    commands.put(name, new Command(parser, handler));
+    return this;
+  }
+
+  // The token file mustn't exist, it's deleted when the server is closed.
+  // Listeners of the server can share the file.
+  private synchronized void writeToken(Path tokenFile) throws IOException {
+    if (!tokenFiles.contains(tokenFile)) {
+      SessionToken.write(tokenFile, token);
+      tokenFiles.add(tokenFile);
+    }
+  }
+
+  // Listens on the loopback interface, 0 means any free port. Clients read
+  // the token from the token file. Returns the port the server listens on.
+  public int startLoopback(int port, Path tokenFile) throws IOException {
+    Objects.requireNonNull(tokenFile);
+
+    writeToken(tokenFile);
+    ServerSocketChannel channel = ServerSocketChannel.open();
+    try {
+      channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+
+    start(channel);
+    return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+  }
+
+  // Listens on a UNIX domain socket, the file is deleted when the server is
+  // closed. Clients read the token from the token file. Throws
+  // UnsupportedOperationException before Java 16.
+  public void startUnix(Path path, Path tokenFile) throws IOException {
+    Objects.requireNonNull(path);
+    Objects.requireNonNull(tokenFile);
+
+    writeToken(tokenFile);
+    ServerSocketChannel channel = UnixSockets.bind(path);
+    socketFiles.add(path);
+    start(channel);
+  }
+
+  private void start(ServerSocketChannel channel) {
+    channels.add(channel);
+    startDaemon(() -> accept(channel));
+  }
+
+  private void accept(ServerSocketChannel channel) {
+    while (channel.isOpen()) {
+      SocketChannel client;
+      try {
+        client = channel.accept();
+      } catch (IOException e) {
+        // the server is closed
+        return;
+      }
+
+      if (numberOfConnections.incrementAndGet() > maxConnections) {
+        numberOfConnections.decrementAndGet();
+        closeQuietly(client);
+        continue;
+      }
+
+      try {
+        executor.execute(() -> {
+          try {
+            serve(client);
+          } finally {
+            numberOfConnections.decrementAndGet();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        numberOfConnections.decrementAndGet();
+        closeQuietly(client);
+      }
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      // nothing is sent to the client anymore
+    }
+  }
+
+  private void serve(SocketChannel client) {
+    try (SocketChannel channel = client) {
+      DataInputStream in = new DataInputStream(
+          new BufferedInputStream(Channels.newInputStream(channel)));
+      DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Channels.newOutputStream(channel)));
+      // closing the channel makes the read fail
+      Future<?> deadline = deadlines.schedule(
+          () -> closeQuietly(channel), requestTimeoutNanos, TimeUnit.NANOSECONDS);
+      String[] argv;
+      try {
+        argv = Frames.readRequest(in, token);
+      } finally {
+        deadline.cancel(false);
+      }
+
+      int exitCode;
+      try (FrameOutputStream stdout = new FrameOutputStream(out, Frames.STDOUT);
+          FrameOutputStream stderr = new FrameOutputStream(out, Frames.STDERR)) {
+        exitCode = run(argv, stdout, stderr);
+      }
+      synchronized (out) {
+        Frames.writeExit(out, exitCode);
+      }
+    } catch (IOException | RejectedExecutionException e) {
+      // the client is gone, isn't a client or the server is closed, there's
+      // no one to report to. A client with a wrong token doesn't learn
+      // anything either.
+    }
+  }
+
+  private static PrintStream printStream(OutputStream stream) {
+    try {
+      return new PrintStream(stream, true, "UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      // every JVM supports UTF-8
+      throw new AssertionError(e);
+    }
+  }
+
+  // Runs the command in the current thread, returns its exit code
+  int run(String[] argv, OutputStream stdout, OutputStream stderr) {
+    PrintStream out = printStream(stdout);
+    PrintStream err = printStream(stderr);
+    try {
+      Command command = argv.length == 0 ? null : commands.get(argv[0]);
+      if (command == null) {
+        err.println(argv.length == 0
+            ? "No command"
+            : String.format("Unknown command <%s>", argv[0]));
+        return UNKNOWN_COMMAND_EXIT_CODE;
+      }
+
+      HelpRequestHandler helpRequestHandler =
+          Util.makeHelpRequestHandler(HELP_EXIT_CODE, out, Exit::raise);
+      ExceptionHandler exceptionHandler =
+          Util.makeExceptionHandler(ERROR_EXIT_CODE, err, Exit::raise);
+      CommandLine commandLine = command.parser.parse(
+          Arrays.copyOfRange(argv, 1, argv.length),
+          helpRequestHandler,
+          exceptionHandler);
+      return command.handler.handle(commandLine, out, err);
+    } catch (Exit e) {
+      return e.exitCode;
+    } catch (Exception e) {
+      e.printStackTrace(err);
+      return ERROR_EXIT_CODE;
+    } finally {
+      out.flush();
+      err.flush();
+    }
+  }
+
+  // Stops listening, commands which are running are finished
+  @Override
+  public void close() throws IOException {
+    for (ServerSocketChannel channel : channels) {
+      channel.close();
+    }
+    channels.clear();
+    // connections which haven't sent their requests are closed right away
+    for (Runnable deadline : deadlines.shutdownNow()) {
+      deadline.run();
+    }
+
+    for (Path socketFile : socketFiles) {
+      Files.deleteIfExists(socketFile);
+    }
+    socketFiles.clear();
+
+    for (Path tokenFile : tokenFiles) {
+      Files.deleteIfExists(tokenFile);
+    }
+    tokenFiles.clear();
+  }
+
+  private static final class Command {
+
+    private final CompiledParser parser;
+    private final CommandHandler handler;
+
+    Command(CompiledParser parser, CommandHandler handler) {
+      this.parser = parser;
+      this.handler = handler;
+    }
+  }
+
+  // Leaves the parser from help and exception handlers instead of exiting
+  // the JVM, it isn't a CommandLineException so the parser doesn't catch it
+  @SuppressWarnings("serial")
+  private static final class Exit extends RuntimeException {
+
+    private final int exitCode;
+
+    private Exit(int exitCode) {
+      super(null, null, false, false);
+      this.exitCode = exitCode;
+    }
+
+    static void raise(int exitCode) {
+      throw new Exit(exitCode);
+    }
+  }
+}
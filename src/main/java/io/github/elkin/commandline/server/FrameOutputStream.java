@@ -0,0 +1,66 @@
+package io.github.elkin.commandline.server;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Output of a command sent to the client, bytes are buffered and sent as one
+// frame on flush. A command can write from several threads, so the buffer
+// is guarded by the stream. Frames of stdout and stderr share the
+// connection, so they're written under its lock.
+final class FrameOutputStream extends OutputStream {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final DataOutputStream out;
+  private final byte stream;
+  private final byte[] buffer;
+  private int count;
+
+  FrameOutputStream(DataOutputStream out, byte stream) {
+    this.out = out;
+    this.stream = stream;
+    buffer = new byte[BUFFER_SIZE];
+  }
+
+  @Override
+  public synchronized void write(int b) throws IOException {
+    if (count == buffer.length) {
+      flush();
+    }
+    buffer[count++] = (byte) b;
+  }
+
+  @Override
+  public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+    while (length > 0) {
+      if (count == buffer.length) {
+        flush();
+      }
+
+      int chunk = Math.min(length, buffer.length - count);
+      System.arraycopy(bytes, offset, buffer, count, chunk);
+      count += chunk;
+      offset += chunk;
+      length -= chunk;
+    }
+  }
+
+  @Override
+  public synchronized void flush() throws IOException {
+    if (count == 0) {
+      return;
+    }
+
+    synchronized (out) {
+      Frames.writeOutput(out, stream, buffer, count);
+    }
+    count = 0;
+  }
+
+  // The connection is closed by the server after the exit code is sent
+  @Override
+  public synchronized void close() throws IOException {
+    flush();
+  }
+}
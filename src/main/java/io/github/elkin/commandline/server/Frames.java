@@ -0,0 +1,131 @@
+package io.github.elkin.commandline.server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+// Wire format of the server. A request is the magic, the session token, the
+// number of strings and the strings of argv, the first one is the name of
+// the command. A response is a sequence of output frames which ends with the
+// exit code. Strings and output are length prefixed, strings are UTF-8
+// encoded.
+final class Frames {
+
+  static final int MAGIC = 0x434c5352;
+  static final byte STDOUT = 1;
+  static final byte STDERR = 2;
+  static final byte EXIT = 3;
+
+  private static final int MAX_LENGTH = 1 << 20;
+  // strings of a request and their lengths, a request can't make the server
+  // allocate more than that
+  static final int MAX_REQUEST_SIZE = 1 << 20;
+
+  private Frames() {
+  }
+
+  private static int readLength(DataInputStream in, int max) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > max) {
+      throw new IOException(String.format("Wrong length %d of a frame", length));
+    }
+    return length;
+  }
+
+  static void writeRequest(DataOutputStream out, byte[] token, String[] argv)
+      throws IOException {
+    byte[][] strings = new byte[argv.length][];
+    long size = (long) Integer.BYTES * argv.length;
+    for (int i = 0; i < argv.length; ++i) {
+      strings[i] = argv[i].getBytes(StandardCharsets.UTF_8);
+      size += strings[i].length;
+    }
+    if (size > MAX_REQUEST_SIZE) {
+      throw new IOException(String.format(
+          "Command line is %d bytes, the server takes at most %d", size, MAX_REQUEST_SIZE));
+    }
+
+    out.writeInt(MAGIC);
+    out.write(token);
+    out.writeInt(argv.length);
+    for (byte[] string : strings) {
+      out.writeInt(string.length);
+      out.write(string);
+    }
+    out.flush();
+  }
+
+  // Nothing but the magic and the token, which have fixed sizes, is read
+  // before the token is checked. The check takes the same time wherever the
+  // tokens differ. Strings are read while they fit in MAX_REQUEST_SIZE.
+  static String[] readRequest(DataInputStream in, byte[] token) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a request");
+    }
+
+    byte[] clientToken = new byte[token.length];
+    in.readFully(clientToken);
+    if (!MessageDigest.isEqual(clientToken, token)) {
+      throw new IOException("Wrong token");
+    }
+
+    int remaining = MAX_REQUEST_SIZE;
+    String[] argv = new String[readLength(in, remaining / Integer.BYTES)];
+    remaining -= argv.length * Integer.BYTES;
+    for (int i = 0; i < argv.length; ++i) {
+      byte[] bytes = new byte[readLength(in, remaining)];
+      remaining -= bytes.length;
+      in.readFully(bytes);
+      argv[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+    return argv;
+  }
+
+  static void writeOutput(DataOutputStream out, byte stream, byte[] bytes, int length)
+      throws IOException {
+    out.writeByte(stream);
+    out.writeInt(length);
+    out.write(bytes, 0, length);
+    out.flush();
+  }
+
+  static void writeExit(DataOutputStream out, int exitCode) throws IOException {
+    out.writeByte(EXIT);
+    out.writeInt(exitCode);
+    out.flush();
+  }
+
+  // Copies output frames to the streams, returns the exit code
+  static int readResponse(DataInputStream in, OutputStream stdout, OutputStream stderr)
+      throws IOException {
+    byte[] buffer = new byte[0];
+    while (true) {
+      byte stream;
+      try {
+        stream = in.readByte();
+      } catch (EOFException e) {
+        throw new IOException("Connection is closed before the exit code", e);
+      }
+
+      if (stream == EXIT) {
+        return in.readInt();
+      }
+      if (stream != STDOUT && stream != STDERR) {
+        throw new IOException(String.format("Unknown frame %d", stream));
+      }
+
+      int length = readLength(in, MAX_LENGTH);
+      if (buffer.length < length) {
+        buffer = new byte[length];
+      }
+      in.readFully(buffer, 0, length);
+      OutputStream target = stream == STDOUT ? stdout : stderr;
+      target.write(buffer, 0, length);
+      target.flush();
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package io.github.elkin.commandline.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.Set;
+
+// Secret of a server which clients send with every request. Anyone who can
+// connect to the loopback port or the socket can't run commands unless they
+// can read the token file, which is readable by its owner only.
+final class SessionToken {
+
+  static final int LENGTH = 32;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  private static final Set<PosixFilePermission> OWNER_ONLY =
+      PosixFilePermissions.fromString("rw-------");
+
+  private SessionToken() {
+  }
+
+  // Returns the token as hex digits, so the file can be read by scripts too
+  static byte[] generate() {
+    byte[] random = new byte[LENGTH / 2];
+    new SecureRandom().nextBytes(random);
+
+    byte[] token = new byte[LENGTH];
+    for (int i = 0; i < random.length; ++i) {
+      token[2 * i] = (byte) HEX_DIGITS[(random[i] >> 4) & 0xf];
+      token[2 * i + 1] = (byte) HEX_DIGITS[random[i] & 0xf];
+    }
+    return token;
+  }
+
+  private static boolean isPosix(Path path) {
+    return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+  }
+
+  // Permissions are restricted on file systems which support them
+  static void restrictToOwner(Path path) throws IOException {
+    if (isPosix(path)) {
+      Files.setPosixFilePermissions(path, OWNER_ONLY);
+    }
+  }
+
+  // The file mustn't exist, otherwise someone else could have created it and
+  // be able to read the token
+  static void write(Path path, byte[] token) throws IOException {
+    FileAttribute<?>[] attributes = isPosix(path)
+        ? new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(OWNER_ONLY)}
+        : new FileAttribute<?>[0];
+    Files.createFile(path, attributes);
+    // the umask can't widen permissions, but the file system could ignore them
+    restrictToOwner(path);
+    Files.write(path, token);
+  }
+
+  static byte[] read(Path path) throws IOException {
+    byte[] token = new String(Files.readAllBytes(path), StandardCharsets.US_ASCII)
+        .trim()
+        .getBytes(StandardCharsets.US_ASCII);
+    if (token.length != LENGTH) {
+      throw new IOException(String.format("<%s> isn't a token file", path));
+    }
+    return token;
+  }
+}
@@ -0,0 +1,103 @@
+package io.github.elkin.commandline.server;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// UNIX domain sockets are available since Java 16, the library targets
+// Java 8 so they're opened by reflection
+final class UnixSockets {
+
+  private static final ProtocolFamily UNIX;
+  private static final Method ADDRESS_OF;
+  private static final Method OPEN_SERVER;
+  private static final Method OPEN_CLIENT;
+
+  static {
+    ProtocolFamily family = null;
+    Method addressOf = null;
+    Method openServer = null;
+    Method openClient = null;
+    try {
+      family = StandardProtocolFamily.valueOf("UNIX");
+      addressOf = Class.forName("java.net.UnixDomainSocketAddress")
+          .getMethod("of", Path.class);
+      openServer = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+      openClient = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+    } catch (IllegalArgumentException | ReflectiveOperationException e) {
+      family = null;
+    }
+
+    UNIX = family;
+    ADDRESS_OF = addressOf;
+    OPEN_SERVER = openServer;
+    OPEN_CLIENT = openClient;
+  }
+
+  private UnixSockets() {
+  }
+
+  static boolean isSupported() {
+    return UNIX != null;
+  }
+
+  private static Object invoke(Method method, Object argument) throws IOException {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException("UNIX domain sockets aren't supported");
+    }
+
+    try {
+      return method.invoke(null, argument);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    } catch (IllegalAccessException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static SocketAddress address(Path path) throws IOException {
+    return (SocketAddress) invoke(ADDRESS_OF, path);
+  }
+
+  // The socket file is readable and writable by its owner only. Clients
+  // which connect before its permissions are changed still need the token.
+  static ServerSocketChannel bind(Path path) throws IOException {
+    ServerSocketChannel channel = (ServerSocketChannel) invoke(OPEN_SERVER, UNIX);
+    try {
+      channel.bind(address(path));
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+
+    try {
+      SessionToken.restrictToOwner(path);
+    } catch (IOException e) {
+      channel.close();
+      Files.deleteIfExists(path);
+      throw e;
+    }
+    return channel;
+  }
+
+  static SocketChannel connect(Path path) throws IOException {
+    SocketChannel channel = (SocketChannel) invoke(OPEN_CLIENT, UNIX);
+    try {
+      channel.connect(address(path));
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    return channel;
+  }
+}
@@ -0,0 +1,159 @@
+package io.github.elkin.commandline;
+
+import io.github.elkin.commandline.exception.ArgumentFileException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ArgumentFileTest {
+    private Path directory;
+    private CommandLineConfiguration configuration;
+
+    @BeforeMethod
+    public void setup() throws IOException
+    {
+        directory = Files.createTempDirectory("commandline");
+        configuration = new CommandLineConfiguration();
+    }
+
+    @AfterMethod
+    public void cleanup() throws IOException
+    {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder())
+                    .forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private String write(String name, String content) throws IOException
+    {
+        Path path = directory.resolve(name);
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return "@" + path;
+    }
+
+    private CommandLine parse(String... args)
+    {
+        return configuration.compile().parse(args);
+    }
+
+    @Test
+    public void newlineSeparated() throws IOException
+    {
+        configuration.enableArgumentFiles(ArgumentSeparator.NEWLINE);
+        configuration.addOption("option", "-o");
+        configuration.addFlag("flag", "-f");
+        configuration.addOptionalArgument("files");
+
+        String file = write("args", "-o\nvalue\r\n\n-f\nfirst\nsecond\u00e9");
+        CommandLine commandLine = parse("zero", file, "third");
+
+        assertEquals(commandLine.get("option").getFirstValue(), "value");
+        assertTrue(commandLine.isFlagSet("flag"));
+        assertEquals(
+                commandLine.get("files").toList(),
+                Arrays.asList("zero", "first", "second\u00e9", "third"));
+    }
+
+    @Test
+    public void helpIsRequestedInFile() throws IOException
+    {
+        configuration.enableArgumentFiles(ArgumentSeparator.NEWLINE);
+        configuration.addOption("option", "-o");
+        AtomicInteger counter = new AtomicInteger();
+
+        String file = write("args", "-o\nvalue\n--help");
+        CommandLine.getCommandLine(
+                configuration,
+                new String[] {file},
+                (c, args) -> counter.incrementAndGet(),
+                Util.reThrowExceptionHandler());
+
+        assertEquals(counter.get(), 1);
+    }
+
+    @Test
+    public void nulSeparated() throws IOException
+    {
+        configuration.enableArgumentFiles(ArgumentSeparator.NUL);
+        configuration.addOptionalArgument("files");
+
+        String file = write("args", "first file\0second\nline\0");
+        CommandLine commandLine = parse(file);
+
+        assertEquals(
+                commandLine.get("files").toList(),
+                Arrays.asList("first file", "second\nline"));
+    }
+
+    @Test
+    public void optionValueAfterFile() throws IOException
+    {
+        configuration.enableArgumentFiles(ArgumentSeparator.NEWLINE);
+        configuration.addOption("option", "-o");
+
+        String file = write("args", "-o");
+        CommandLine commandLine = parse(file, "value");
+
+        assertEquals(commandLine.get("option").getFirstValue(), "value");
+    }
+
+    @Test
+    public void nestedFiles() throws IOException
+    {
+        configuration.enableArgumentFiles(ArgumentSeparator.NEWLINE);
+        configuration.addOptionalArgument("files");
+
+        String inner = write("inner", "second\nthird");
+        String outer = write("outer", "first\n" + inner + "\nfourth");
+        CommandLine commandLine = parse(outer, inner);
+
+        assertEquals(
+                commandLine.get("files").toList(),
+                Arrays.asList("first", "second", "third", "fourth", "second", "third"));
+    }
+
+    @Test(expectedExceptions = ArgumentFileException.class)
+    public void cycle() throws IOException
+    {
+        configuration.enableArgumentFiles(ArgumentSeparator.NEWLINE);
+        configuration.addOptionalArgument("files");
+
+        Path second = directory.resolve("second");
+        String first = write("first", "a\n@" + second);
+        write("second", "b\n" + first);
+
+        parse(first);
+    }
+
+    @Test(expectedExceptions = ArgumentFileException.class)
+    public void missingFile()
+    {
+        configuration.enableArgumentFiles(ArgumentSeparator.NEWLINE);
+        configuration.addOptionalArgument("files");
+
+        parse("@" + directory.resolve("missing"));
+    }
+
+    @Test
+    public void disabledByDefault()
+    {
+        configuration.addOptionalArgument("user");
+
+        CommandLine commandLine = parse("@user");
+
+        assertEquals(commandLine.get("user").getFirstValue(), "@user");
+    }
+}
@@ -0,0 +1,238 @@
+package io.github.elkin.commandline;
+
+import io.github.elkin.commandline.exception.CheckException;
+import io.github.elkin.commandline.exception.ConsumerException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class AsyncConsumerTest {
+    private ExecutorService executor;
+    private CommandLineConfiguration configuration;
+
+    @BeforeMethod
+    public void setup()
+    {
+        executor = Executors.newFixedThreadPool(4);
+        configuration = new CommandLineConfiguration()
+                .setAsyncConsumerExecutor(executor);
+    }
+
+    @AfterMethod
+    public void cleanup()
+    {
+        executor.shutdownNow();
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Consumers don't overlap");
+            }
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(int millis)
+    {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void consumersOverlap()
+    {
+        CountDownLatch latch = new CountDownLatch(3);
+        AtomicInteger consumed = new AtomicInteger();
+        configuration.addOption("config", "-c").setAsyncConsumer(value -> {
+            latch.countDown();
+            await(latch);
+            consumed.incrementAndGet();
+        });
+        configuration.addFlag("verbose", "-v").setAsyncConsumer(flag -> {
+            latch.countDown();
+            await(latch);
+            consumed.incrementAndGet();
+        });
+        configuration.addRequiredArgument("host").setAsyncConsumer(value -> {
+            latch.countDown();
+            await(latch);
+            consumed.incrementAndGet();
+        });
+
+        configuration.compile().parse(new String[] {"-c", "a.conf", "-v", "localhost"});
+
+        assertEquals(consumed.get(), 3);
+    }
+
+    @Test
+    public void valuesAreConsumedInOrder()
+    {
+        List<String> values = Collections.synchronizedList(new ArrayList<>());
+        List<String> expected = new ArrayList<>();
+        configuration.addOptionalArgument("files").setAsyncConsumer(value -> {
+            sleep(ThreadLocalRandom.current().nextInt(3));
+            values.add(value);
+        });
+        String[] args = new String[20];
+        for (int i = 0; i < args.length; ++i) {
+            args[i] = "file" + i;
+            expected.add(args[i]);
+        }
+
+        configuration.compile().parse(args);
+
+        assertEquals(values, expected);
+    }
+
+    @Test
+    public void parseWaitsForConsumers()
+    {
+        AtomicBoolean isLoaded = new AtomicBoolean();
+        TypedOption<Duration> timeout = configuration.addOption(
+                "timeout",
+                "-t",
+                Converters.duration());
+        timeout.setAsyncConsumer(value -> {
+            sleep(50);
+            isLoaded.set(true);
+        });
+
+        CommandLine commandLine = configuration.compile().parse(new String[] {"-t", "5s"});
+
+        assertTrue(isLoaded.get());
+        assertEquals(commandLine.get(timeout), Collections.singletonList(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    public void failureIsConsumerException()
+    {
+        configuration.addOption("dictionary", "-d").setAsyncConsumer(value -> {
+            throw new IllegalStateException("can't load " + value);
+        });
+
+        try {
+            configuration.compile().parse(new String[] {"-d", "words"});
+            fail();
+        } catch (ConsumerException e) {
+            assertTrue(e.getMessage().contains("dictionary"));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void parseAsync()
+    {
+        AtomicInteger consumed = new AtomicInteger();
+        configuration.addOption("config", "-c").setAsyncConsumer(value -> {
+            sleep(20);
+            consumed.incrementAndGet();
+        });
+        CompiledParser parser = configuration.compile();
+
+        CommandLine commandLine = parser.parseAsync(new String[] {"-c", "a.conf"}).join();
+
+        assertEquals(consumed.get(), 1);
+        assertEquals(commandLine.get("config").getFirstValue(), "a.conf");
+    }
+
+    @Test
+    public void parseAsyncFailures()
+    {
+        configuration.addOption("level", "-l")
+                .setValueType(ValueType.INT)
+                .setAsyncConsumer(value -> {
+                    throw new IllegalArgumentException(value);
+                });
+        CompiledParser parser = configuration.compile();
+
+        CompletableFuture<CommandLine> consumerFailure = parser.parseAsync(new String[] {"-l", "1"});
+        CompletableFuture<CommandLine> parseFailure = parser.parseAsync(new String[] {"-l", "x"});
+
+        try {
+            consumerFailure.join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof ConsumerException);
+        }
+        try {
+            parseFailure.join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof CheckException);
+        }
+    }
+
+    @Test
+    public void streamedValuesDontPileUp()
+    {
+        configuration.setRemainderMode(RemainderMode.STREAM);
+        AtomicInteger read = new AtomicInteger();
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicInteger maxWaiting = new AtomicInteger();
+        CountDownLatch slowStart = new CountDownLatch(1);
+        configuration.addOptionalArgument("files")
+                .setChecker(value -> {
+                    int waiting = read.incrementAndGet() - consumed.get();
+                    maxWaiting.accumulateAndGet(waiting, Math::max);
+                    return true;
+                })
+                .setAsyncConsumer(value -> {
+                    if (consumed.get() == 0) {
+                        // lets the parser read ahead as far as it can
+                        try {
+                            slowStart.await(100, TimeUnit.MILLISECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    consumed.incrementAndGet();
+                });
+        String[] args = new String[5 * CommandLineParser.MAX_ASYNC_VALUES];
+        Arrays.fill(args, "file");
+
+        CommandLine commandLine = configuration.compile().parse(args);
+
+        assertEquals(consumed.get(), args.length);
+        assertEquals(commandLine.numberOfValues("files"), args.length);
+        assertTrue(maxWaiting.get() <= CommandLineParser.MAX_ASYNC_VALUES + 1);
+    }
+
+    @Test
+    public void syncConsumersAreNotChanged()
+    {
+        List<String> threads = new ArrayList<>();
+        configuration.addOption("config", "-c")
+                .setConsumer(value -> threads.add(Thread.currentThread().getName()));
+
+        CompiledParser parser = configuration.compile();
+        parser.parse(new String[] {"-c", "a.conf"});
+        parser.parseAsync(new String[] {"-c", "b.conf"}).join();
+
+        assertEquals(threads, Collections.nCopies(2, Thread.currentThread().getName()));
+    }
+}
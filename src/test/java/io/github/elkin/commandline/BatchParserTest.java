@@ -0,0 +1,211 @@
+package io.github.elkin.commandline;
+
+import io.github.elkin.commandline.exception.CheckException;
+import io.github.elkin.commandline.exception.SizeViolationException;
+import io.github.elkin.commandline.exception.UnknownPrefixException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class BatchParserTest {
+    private ExecutorService executor;
+    private CompiledParser parser;
+
+    @BeforeMethod
+    public void setup()
+    {
+        executor = Executors.newFixedThreadPool(4);
+        CommandLineConfiguration configuration = new CommandLineConfiguration();
+        configuration.addOption("level", "-l")
+                .setValueType(ValueType.INT)
+                .setChecker(value -> {
+                    // later command lines are often parsed before earlier ones
+                    try {
+                        Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return true;
+                });
+        configuration.addRequiredArgument("command");
+        parser = configuration.compile();
+    }
+
+    @AfterMethod
+    public void cleanup()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void resultsAreInInputOrder()
+    {
+        List<BatchResult> results = new ArrayList<>();
+
+        BatchStats stats = parser.newBatchParser()
+                .setExecutor(executor)
+                .setMaxInFlight(8)
+                .parse(
+                        IntStream.range(0, 100).mapToObj(i -> new String[] {"-l", "" + i, "run"}),
+                        results::add);
+
+        assertEquals(results.size(), 100);
+        for (int i = 0; i < results.size(); ++i) {
+            BatchResult result = results.get(i);
+            assertEquals(result.index(), i);
+            assertTrue(result.isParsed());
+            assertNull(result.exception());
+            assertEquals(result.commandLine().getInts("level").getFirstValue(), i);
+        }
+        assertEquals(stats.numberOfCommandLines(), 100);
+        assertEquals(stats.numberOfErrors(), 0);
+        assertTrue(stats.commandLinesPerSecond() > 0);
+    }
+
+    @Test
+    public void inFlightIsBounded()
+    {
+        AtomicInteger submitted = new AtomicInteger();
+        List<Integer> submittedBeforeResult = new ArrayList<>();
+
+        parser.newBatchParser()
+                .setExecutor(task -> {
+                    submitted.incrementAndGet();
+                    executor.execute(task);
+                })
+                .setMaxInFlight(4)
+                .parse(
+                        Stream.generate(() -> new String[] {"run"}).limit(50),
+                        result -> submittedBeforeResult.add(submitted.get()));
+
+        for (int i = 0; i < submittedBeforeResult.size(); ++i) {
+            assertTrue(submittedBeforeResult.get(i) <= i + 4);
+        }
+    }
+
+    @Test
+    public void errorsAreCountedByType()
+    {
+        List<BatchResult> results = new ArrayList<>();
+
+        BatchStats stats = parser.newBatchParser()
+                .setExecutor(executor)
+                .parse(
+                        Stream.of(
+                                new String[] {"run"},
+                                new String[] {"-l", "x", "run"},
+                                new String[0],
+                                new String[] {"--other", "run"},
+                                new String[] {"-l", "y", "run"}),
+                        results::add);
+
+        assertEquals(stats.numberOfCommandLines(), 5);
+        assertEquals(stats.numberOfErrors(), 4);
+        assertEquals(stats.errorCounts().get(CheckException.class).longValue(), 2);
+        assertEquals(stats.errorCounts().get(SizeViolationException.class).longValue(), 1);
+        assertEquals(stats.errorCounts().get(UnknownPrefixException.class).longValue(), 1);
+        assertTrue(results.get(0).isParsed());
+        assertFalse(results.get(1).isParsed());
+        assertTrue(results.get(1).exception() instanceof CheckException);
+        assertEquals(results.get(3).args(), new String[] {"--other", "run"});
+    }
+
+    @Test
+    public void defaultExecutor()
+    {
+        AtomicInteger parsed = new AtomicInteger();
+
+        BatchStats stats = parser.newBatchParser().parse(
+                Stream.generate(() -> new String[] {"run"}).limit(20),
+                result -> parsed.incrementAndGet());
+
+        assertEquals(parsed.get(), 20);
+        assertEquals(stats.numberOfErrors(), 0);
+    }
+
+    @Test
+    public void file() throws IOException
+    {
+        Path file = Files.createTempFile("commandline", ".log");
+        try {
+            Files.write(file, Arrays.asList("-l 1  run", "", "  -l 2 stop "), StandardCharsets.UTF_8);
+            List<BatchResult> results = new ArrayList<>();
+
+            BatchStats stats = parser.newBatchParser()
+                    .setExecutor(executor)
+                    .parse(file, results::add);
+
+            assertEquals(stats.numberOfCommandLines(), 3);
+            assertEquals(stats.errorCounts().get(SizeViolationException.class).longValue(), 1);
+            assertEquals(results.get(0).commandLine().get("command").getFirstValue(), "run");
+            assertEquals(results.get(2).args(), new String[] {"-l", "2", "stop"});
+            assertEquals(results.get(2).commandLine().getInts("level").getFirstValue(), 2);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void parallelCheckingOnTheSamePool()
+    {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            CommandLineConfiguration configuration = new CommandLineConfiguration()
+                    .enableParallelChecking(pool);
+            configuration.addOptionalArgument("numbers")
+                    .setChecker(Util.isInteger());
+            String[] args = new String[20000];
+            Arrays.fill(args, "1");
+
+            BatchStats stats = configuration.compile().newBatchParser()
+                    .setExecutor(pool)
+                    .parse(Stream.generate(() -> args).limit(4), result -> {});
+
+            assertEquals(stats.numberOfCommandLines(), 4);
+            assertEquals(stats.numberOfErrors(), 0);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void wrongMaxInFlight()
+    {
+        parser.newBatchParser().setMaxInFlight(0);
+    }
+
+    @Test
+    public void splitByWhitespace()
+    {
+        assertEquals(BatchParser.splitByWhitespace(""), new String[0]);
+        assertEquals(BatchParser.splitByWhitespace(" \t\r\n"), new String[0]);
+        assertEquals(BatchParser.splitByWhitespace("a"), new String[] {"a"});
+        assertEquals(
+                BatchParser.splitByWhitespace("  -l 3\t\tcopy\u000ba\fb\r\n"),
+                new String[] {"-l", "3", "copy", "a", "b"});
+        // only ASCII whitespace separates tokens
+        assertEquals(
+                BatchParser.splitByWhitespace("a\u00a0b\u2003c"),
+                new String[] {"a\u00a0b\u2003c"});
+    }
+}
@@ -0,0 +1,193 @@
+package io.github.elkin.commandline;
+
+import io.github.elkin.commandline.exception.ArgumentReadException;
+import io.github.elkin.commandline.exception.CheckException;
+import io.github.elkin.commandline.exception.UnknownPrefixException;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+public class ChannelArgumentsTest {
+    private static ReadableByteChannel channel(String content)
+    {
+        return Channels.newChannel(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Returns at most one byte per read like a slow producer does
+    private static ReadableByteChannel slowChannel(String content)
+    {
+        ByteBuffer source = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        return new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst)
+            {
+                if (!source.hasRemaining()) {
+                    return -1;
+                }
+                dst.put(source.get());
+                return 1;
+            }
+
+            @Override
+            public boolean isOpen()
+            {
+                return true;
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+    }
+
+    private static List<String> read(ChannelArguments arguments) throws IOException
+    {
+        List<String> result = new ArrayList<>();
+        for (String arg = arguments.next(); arg != null; arg = arguments.next()) {
+            result.add(arg);
+        }
+        return result;
+    }
+
+    @Test
+    public void nulSeparated() throws IOException
+    {
+        ChannelArguments arguments = new ChannelArguments(
+                channel("first file\0second\nline\0\0third"),
+                ArgumentSeparator.NUL);
+
+        assertEquals(read(arguments), Arrays.asList("first file", "second\nline", "third"));
+    }
+
+    @Test
+    public void newlineSeparated() throws IOException
+    {
+        ChannelArguments arguments = new ChannelArguments(
+                channel("first\r\n\nsecond\u00e9\n"),
+                ArgumentSeparator.NEWLINE);
+
+        assertEquals(read(arguments), Arrays.asList("first", "second\u00e9"));
+    }
+
+    @Test
+    public void argumentsCrossReads() throws IOException
+    {
+        ChannelArguments arguments = new ChannelArguments(
+                slowChannel("first\u00e9\0second\0"),
+                ArgumentSeparator.NUL);
+
+        assertEquals(read(arguments), Arrays.asList("first\u00e9", "second"));
+    }
+
+    @Test
+    public void argumentLongerThanChunk() throws IOException
+    {
+        String longArgument = String.join("", Collections.nCopies(100000, "a"));
+        ChannelArguments arguments = new ChannelArguments(
+                channel("first\n" + longArgument + "\nlast"),
+                ArgumentSeparator.NEWLINE);
+
+        assertEquals(read(arguments), Arrays.asList("first", longArgument, "last"));
+    }
+
+    @Test
+    public void parseWithInput()
+    {
+        CommandLineConfiguration configuration = new CommandLineConfiguration();
+        configuration.addFlag("flag", "-f");
+        configuration.addRequiredArgument("command");
+        configuration.addOptionalArgument("files");
+
+        CommandLine commandLine = configuration.compile().parse(
+                new String[]{"-f", "rm", "zero"},
+                slowChannel("first\0-second\0"),
+                ArgumentSeparator.NUL);
+
+        assertEquals(commandLine.get("command").getFirstValue(), "rm");
+        assertEquals(
+                commandLine.get("files").toList(),
+                Arrays.asList("zero", "first", "-second"));
+    }
+
+    @Test
+    public void inputArgumentsAreChecked()
+    {
+        CommandLineConfiguration configuration = new CommandLineConfiguration();
+        List<String> consumed = new ArrayList<>();
+        configuration.addOptionalArgument("numbers")
+                .setChecker(Util.isInteger())
+                .setConsumer(consumed::add);
+
+        try {
+            configuration.compile().parse(
+                    new String[0],
+                    channel("1\n2\nthree\n4"),
+                    ArgumentSeparator.NEWLINE);
+        } catch (CheckException e) {
+            assertEquals(consumed, Arrays.asList("1", "2"));
+            return;
+        }
+        throw new AssertionError("CheckException is expected");
+    }
+
+    @Test(expectedExceptions = ArgumentReadException.class)
+    public void readError()
+    {
+        CommandLineConfiguration configuration = new CommandLineConfiguration();
+        configuration.addOptionalArgument("files");
+
+        ReadableByteChannel channel = channel("");
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+
+        configuration.compile().parse(new String[0], channel, ArgumentSeparator.NUL);
+    }
+
+    @Test
+    public void standardInput()
+    {
+        CommandLineConfiguration configuration = new CommandLineConfiguration();
+        configuration.enableStandardInput(ArgumentSeparator.NUL);
+        configuration.addOptionalArgument("files");
+
+        InputStream in = System.in;
+        System.setIn(new ByteArrayInputStream(
+                "second\0third\0".getBytes(StandardCharsets.UTF_8)));
+        try {
+            CommandLine commandLine = configuration.compile().parse(
+                    new String[]{"first", "-", "fourth"});
+
+            assertEquals(
+                    commandLine.get("files").toList(),
+                    Arrays.asList("first", "second", "third", "fourth"));
+        } finally {
+            System.setIn(in);
+        }
+    }
+
+    @Test(expectedExceptions = UnknownPrefixException.class)
+    public void standardInputIsDisabledByDefault()
+    {
+        CommandLineConfiguration configuration = new CommandLineConfiguration();
+        configuration.addOptionalArgument("files");
+
+        configuration.compile().parse(new String[]{"-"});
+    }
+}
@@ -0,0 +1,132 @@
+package io.github.elkin.commandline;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ChoiceTest {
+    private Path file;
+
+    @BeforeMethod
+    public void setup() throws IOException
+    {
+        file = Files.createTempFile("choice", ".txt");
+    }
+
+    @AfterMethod
+    public void cleanup() throws IOException
+    {
+        Files.deleteIfExists(file);
+    }
+
+    private static List<String> values(int count)
+    {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            result.add("tenant-" + i);
+        }
+        return result;
+    }
+
+    @Test
+    public void choice()
+    {
+        Predicate<String> checker = Util.choice("sum", "prod", "sub");
+        assertTrue(checker.test("sum"));
+        assertTrue(checker.test("sub"));
+        assertFalse(checker.test("div"));
+        assertFalse(checker.test(""));
+    }
+
+    @Test
+    public void collidingValues()
+    {
+        // "Aa" and "BB" have the same hash code
+        Predicate<String> checker = Util.choice("Aa", "BB", "C");
+        assertTrue(checker.test("Aa"));
+        assertTrue(checker.test("BB"));
+        assertFalse(checker.test("AaBB"));
+    }
+
+    @Test
+    public void enumChoice()
+    {
+        Predicate<String> checker = Util.choice(TimeUnit.class);
+        assertTrue(checker.test("SECONDS"));
+        assertFalse(checker.test("seconds"));
+        assertFalse(checker.test("WEEKS"));
+    }
+
+    @Test
+    public void hashChoice()
+    {
+        List<String> values = values(20000);
+        Predicate<String> checker = Util.hashChoice(values);
+
+        for (String value : values) {
+            assertTrue(checker.test(value), value);
+        }
+        assertFalse(checker.test("tenant-20000"));
+
+        values.clear();
+        assertTrue(checker.test("tenant-1"));
+    }
+
+    @Test
+    public void fileChoice() throws IOException
+    {
+        List<String> values = values(20000);
+        values.add("r\u00e9gion");
+        Collections.sort(values);
+        Files.write(file, values, StandardCharsets.UTF_8);
+
+        Predicate<String> checker = Util.fileChoice(file);
+
+        for (String value : values) {
+            assertTrue(checker.test(value), value);
+        }
+        for (String value : Arrays.asList("", "tenant-", "tenant-20000", "tenant-1 ", "region", "zzz")) {
+            assertFalse(checker.test(value), value);
+        }
+    }
+
+    @Test
+    public void fileChoiceWithCarriageReturns() throws IOException
+    {
+        Files.write(file, "a\r\nb\r\nc".getBytes(StandardCharsets.UTF_8));
+
+        Predicate<String> checker = Util.fileChoice(file);
+
+        assertTrue(checker.test("a"));
+        assertTrue(checker.test("c"));
+        assertFalse(checker.test("a\r"));
+    }
+
+    @Test
+    public void emptyFileChoice() throws IOException
+    {
+        assertFalse(Util.fileChoice(file).test("a"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void unsortedFile() throws IOException
+    {
+        Files.write(file, Arrays.asList("b", "a"), StandardCharsets.UTF_8);
+
+        Util.fileChoice(file);
+    }
+}
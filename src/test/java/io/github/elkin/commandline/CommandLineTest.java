@@ -12,11 +12,26 @@ import io.github.elkin.commandline.exception.ValidationException;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 public class CommandLineTest {
     private CommandLineConfiguration configuration;
@@ -1367,6 +1382,78 @@ public class CommandLineTest {
         parse(configuration, new String[] {"-s", "--option=1"});
     }
 
+    // Validator written against the configuration, it sees values only
+    // after CommandLine.getCommandLine()
+    private static Validator optionIsForbidden(Option option)
+    {
+        return (arguments, options, flags) -> {
+            if (!option.values().isEmpty()) {
+                throw new ValidationException("forbidden");
+            }
+        };
+    }
+
+    @Test(expectedExceptions = ValidationException.class)
+    public void configurationValidatorOnGetCommandLine()
+    {
+        configuration.addValidator(optionIsForbidden(configuration.addOption("option", "-o")));
+
+        parse(configuration, new String[] {"-o", "1"});
+    }
+
+    @Test
+    public void configurationValidatorIsRefusedByOtherParses()
+    {
+        configuration.addValidator(optionIsForbidden(configuration.addOption("option", "-o")));
+        CompiledParser parser = configuration.compile();
+        String[] args = {"-o", "1"};
+
+        List<Runnable> parses = Arrays.asList(
+                () -> parser.parse(args),
+                () -> parser.parse(args, (c, a) -> {}, Util.reThrowExceptionHandler()),
+                () -> parser.parseAsync(args),
+                () -> parser.newContext().parse(args),
+                () -> parser.threadLocalContext().parse(args),
+                () -> parser.newBatchParser().parse(Stream.<String[]>of(args), result -> {}));
+        for (Runnable parse : parses) {
+            try {
+                parse.run();
+                fail("IllegalStateException is expected");
+            } catch (IllegalStateException e) {
+                assertTrue(e.getMessage().contains("validate(CommandLine)"));
+            }
+        }
+    }
+
+    @Test
+    public void optionWithDefaultValueIsUsedInGroup()
+    {
+        Option level = configuration.addOption("level", "--level")
+                .addDefaultValue("1");
+        Flag quiet = configuration.addFlag("quiet", "-q");
+
+        GroupValidator validator = new GroupValidator();
+        validator.addGroup()
+                .addOption(level);
+        validator.addGroup()
+                .addFlag(quiet);
+
+        // the validator reads the options which are updated by the parse
+        parse(configuration, new String[] {"-q"});
+        validator.validate(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+        parse(configuration, new String[] {"--level", "1", "-q"});
+        try {
+            validator.validate(
+                    Collections.emptyList(),
+                    Collections.emptyList(),
+                    Collections.emptyList());
+            fail("ValidationException is expected");
+        } catch (ValidationException e) {
+            assertTrue(e.getMessage().contains("--level"));
+        }
+    }
+
     @Test
     public void defaultCommandLineConfigurationDescriptionIsEmptyString()
     {
@@ -1374,4 +1461,729 @@ public class CommandLineTest {
         assertEquals(configuration.description(), "");
     }
 
+    @Test
+    public void compiledParserCanBeReused()
+    {
+        Option option = configuration.addOption("option", "-o");
+        Flag flag = configuration.addFlag("flag", "-f");
+        OptionalArgument argument = configuration.addOptionalArgument("argument");
+        CompiledParser parser = configuration.compile();
+
+        CommandLine first = parser.parse(new String[] {"-oa", "-f", "first"});
+        CommandLine second = parser.parse(new String[] {"-o", "b", "second", "third"});
+
+        assertEquals(first.get("option").getFirstValue(), "a");
+        assertTrue(first.isFlagSet("flag"));
+        assertEquals(first.get("argument").toList(), Collections.singletonList("first"));
+
+        assertEquals(second.get("option").getFirstValue(), "b");
+        assertFalse(second.isFlagSet("flag"));
+        assertEquals(second.get("argument").toList(), Arrays.asList("second", "third"));
+
+        assertTrue(option.values().isEmpty());
+        assertFalse(flag.isSet());
+        assertFalse(argument.value().isPresent());
+    }
+
+    @Test
+    public void compiledParserIgnoresLaterChanges()
+    {
+        configuration.addOption("option", "-o");
+        CompiledParser parser = configuration.compile();
+        configuration.addOption("option2", "-t");
+
+        CommandLine commandLine = parser.parse(new String[] {"-o", "a"});
+        assertEquals(commandLine.get("option").getFirstValue(), "a");
+        assertFalse(commandLine.names().contains("option2"));
+    }
+
+    @Test(expectedExceptions = CheckException.class)
+    public void compiledParserChecksValues()
+    {
+        configuration.addOption("option", "-o")
+                .setChecker(Util.isInteger());
+
+        configuration.compile().parse(new String[] {"-o", "a"});
+    }
+
+    @Test
+    public void helpIsRequested()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        configuration.addOption("option", "-o");
+
+        CommandLine commandLine = CommandLine.getCommandLine(
+                configuration,
+                new String[] {"-o", "a", "--help"},
+                (c, args) -> counter.incrementAndGet(),
+                Util.reThrowExceptionHandler());
+
+        assertEquals(counter.get(), 1);
+        assertTrue(commandLine.isFlagSet("help"));
+    }
+
+    @Test
+    public void helpIsHandledBeforeConsumers()
+    {
+        List<String> events = new ArrayList<>();
+        configuration.addOption("option", "-x")
+                .setConsumer(value -> events.add("consumer"));
+
+        CommandLine.getCommandLine(
+                configuration,
+                new String[] {"-x", "val", "--help"},
+                (c, args) -> events.add("help"),
+                Util.reThrowExceptionHandler());
+
+        assertEquals(events, Arrays.asList("help", "consumer"));
+
+        // a handler which exits leaves no side effects
+        events.clear();
+        try {
+            CommandLine.getCommandLine(
+                    configuration,
+                    new String[] {"-x", "val", "--help"},
+                    (c, args) -> {
+                        events.add("help");
+                        throw new IllegalStateException("exit");
+                    },
+                    Util.reThrowExceptionHandler());
+            fail("IllegalStateException is expected");
+        } catch (IllegalStateException e) {
+            assertEquals(events, Collections.singletonList("help"));
+        }
+    }
+
+    @Test
+    public void helpIsRequestedBeforeError()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        try {
+            CommandLine.getCommandLine(
+                    configuration,
+                    new String[] {"-x", "-h"},
+                    (c, args) -> counter.incrementAndGet(),
+                    Util.reThrowExceptionHandler());
+        } catch (UnknownPrefixException e) {
+            assertEquals(counter.get(), 1);
+            return;
+        }
+        fail("UnknownPrefixException is expected");
+    }
+
+    @Test
+    public void optionAfterStickedFlags()
+    {
+        Flag flag = configuration.addFlag("flag", "-f");
+        Option option = configuration.addOption("option", "-o");
+
+        parse(configuration, new String[] {"-fo", "value"});
+
+        assertTrue(flag.isSet());
+        assertEquals(option.values().getFirstValue(), "value");
+    }
+
+    @Test(expectedExceptions = NoValueException.class)
+    public void optionInTheMiddleOfStickedFlags()
+    {
+        configuration.addFlag("flag", "-f");
+        configuration.addOption("option", "-o");
+
+        parse(configuration, new String[] {"-fof", "value"});
+    }
+
+    @Test(expectedExceptions = NoValueException.class)
+    public void attachedValueLooksLikeOption()
+    {
+        configuration.addOption("option", "--option");
+
+        parse(configuration, new String[] {"--option=-a"});
+    }
+
+    @Test
+    public void longOptionWithEmptyValueTakesNextArgument()
+    {
+        Option option = configuration.addOption("option", "--option");
+
+        parse(configuration, new String[] {"--option=", "value"});
+
+        assertEquals(option.values().getFirstValue(), "value");
+    }
+
+    @Test
+    public void repeatedStickedFlags()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        Flag verbose = configuration.addFlag("verbose", "-v")
+                .setMaxNumberOfValues(10)
+                .setConsumer(f -> counter.incrementAndGet());
+        Flag extract = configuration.addFlag("extract", "-x");
+
+        CommandLine commandLine = getCommandLine(configuration, new String[] {"-vvvvvxvvv"});
+
+        assertTrue(commandLine.isFlagSet("verbose"));
+        assertTrue(commandLine.isFlagSet("extract"));
+        assertEquals(verbose.numberOfFlags(), 8);
+        assertEquals(extract.numberOfFlags(), 1);
+        assertEquals(counter.get(), 8);
+    }
+
+    @Test(expectedExceptions = DuplicatePrefixException.class)
+    public void prefixOverlappingNotNeighbours()
+    {
+        configuration.addOption("abc", "--abc");
+        configuration.addOption("abd", "--abd");
+        configuration.addOption("ab", "--ab");
+    }
+
+    @Test
+    public void addOptions()
+    {
+        Map<String, String> prefixByName = new LinkedHashMap<>();
+        for (int i = 0; i < 10000; ++i) {
+            prefixByName.put("option" + i, "--option-" + i + "-");
+        }
+
+        List<Option> options = configuration.addOptions(prefixByName);
+        assertEquals(options.size(), 10000);
+        assertEquals(options.get(42).name(), "option42");
+
+        parse(configuration, new String[] {"--option-42-=value"});
+        assertEquals(options.get(42).values().getFirstValue(), "value");
+    }
+
+    @Test(expectedExceptions = DuplicatePrefixException.class)
+    public void addOptionsPrefixOverlappingInBatch()
+    {
+        Map<String, String> prefixByName = new LinkedHashMap<>();
+        prefixByName.put("option", "--option");
+        prefixByName.put("opt", "--opt");
+
+        configuration.addOptions(prefixByName);
+    }
+
+    @Test(expectedExceptions = DuplicatePrefixException.class)
+    public void addOptionsPrefixOverlappingWithRegistered()
+    {
+        configuration.addFlag("flag", "--opt");
+
+        configuration.addOptions(Collections.singletonMap("option", "--option"));
+    }
+
+    @Test
+    public void addOptionsFailureDoesntRegisterAnything()
+    {
+        configuration.addOption("option", "-o");
+        Map<String, String> prefixByName = new LinkedHashMap<>();
+        prefixByName.put("first", "-f");
+        prefixByName.put("second", "-o");
+
+        try {
+            configuration.addOptions(prefixByName);
+            fail("DuplicatePrefixException is expected");
+        } catch (DuplicatePrefixException e) {
+            assertEquals(configuration.options().size(), 1);
+        }
+
+        configuration.addOption("first", "-f");
+    }
+
+    @Test
+    public void streamedRemainder()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        configuration.setRemainderMode(RemainderMode.STREAM);
+        configuration.addRequiredArgument("first");
+        RequiredArgument files = configuration.addRequiredArgument("files")
+                .setConsumer(value -> counter.incrementAndGet());
+
+        CommandLine commandLine = getCommandLine(
+                configuration,
+                new String[] {"0", "1", "2", "3", "4"});
+
+        assertEquals(counter.get(), 4);
+        assertEquals(commandLine.get("files").toList(), Collections.singletonList("1"));
+        assertEquals(commandLine.numberOfValues("files"), 4);
+        assertEquals(commandLine.numberOfValues("first"), 1);
+        assertEquals(files.value(), "1");
+        assertTrue(files.remainder().isEmpty());
+    }
+
+    @Test(expectedExceptions = SizeViolationException.class)
+    public void streamedRemainderMaxIsExceeded()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        configuration.setRemainderMode(RemainderMode.STREAM)
+                .setMaxLastArgumentSize(2);
+        configuration.addOptionalArgument("files")
+                .setConsumer(value -> counter.incrementAndGet());
+
+        try {
+            getCommandLine(configuration, new String[] {"1", "2", "3", "4", "5"});
+        } finally {
+            // the value over the max doesn't reach the consumer
+            assertEquals(counter.get(), 2);
+        }
+    }
+
+    @Test
+    public void streamedRemainderMaxIsExceededWithParallelChecking()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        configuration.enableParallelChecking();
+        configuration.setRemainderMode(RemainderMode.STREAM)
+                .setMaxLastArgumentSize(100);
+        configuration.addOptionalArgument("numbers")
+                .setConsumer(value -> counter.incrementAndGet());
+
+        try {
+            getCommandLine(configuration, numbers(1000));
+            fail("SizeViolationException is expected");
+        } catch (SizeViolationException e) {
+            assertTrue(counter.get() <= 100);
+        }
+    }
+
+    @Test(expectedExceptions = CheckException.class)
+    public void streamedRemainderIsChecked()
+    {
+        configuration.setRemainderMode(RemainderMode.STREAM);
+        configuration.addOptionalArgument("numbers")
+                .setChecker(Util.isInteger());
+
+        getCommandLine(configuration, new String[] {"1", "2", "a"});
+    }
+
+    private static String[] numbers(int count)
+    {
+        String[] result = new String[count];
+        for (int i = 0; i < count; ++i) {
+            result[i] = Integer.toString(i);
+        }
+        return result;
+    }
+
+    @Test
+    public void parallelChecking()
+    {
+        List<String> consumed = new ArrayList<>();
+        configuration.enableParallelChecking();
+        configuration.addOption("option", "-o")
+                .setChecker(Util.isInteger())
+                .setConsumer(consumed::add);
+        configuration.addOptionalArgument("numbers")
+                .setChecker(Util.isInteger())
+                .setConsumer(consumed::add);
+
+        String[] args = numbers(20000);
+        args[10] = "-o";
+        CommandLine commandLine = getCommandLine(configuration, args);
+
+        List<String> expected = new ArrayList<>(Arrays.asList(args));
+        expected.remove(10);
+        assertEquals(consumed, expected);
+        assertEquals(commandLine.get("option").getFirstValue(), "11");
+        assertEquals(commandLine.numberOfValues("numbers"), 19998);
+    }
+
+    @Test
+    public void parallelCheckingReportsFirstFailure()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        configuration.enableParallelChecking(executor);
+        configuration.addOptionalArgument("numbers")
+                .setChecker(Util.isInteger())
+                .setConsumer(value -> counter.incrementAndGet());
+
+        String[] args = numbers(20000);
+        args[19000] = "second";
+        args[9000] = "first";
+
+        try {
+            getCommandLine(configuration, args);
+            fail("CheckException is expected");
+        } catch (CheckException e) {
+            assertTrue(e.getMessage().contains("<first>"));
+            assertEquals(counter.get(), 9000);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void parallelCheckingDoesntWaitForQueuedTasks()
+    {
+        // tasks are never run, as if every worker of the pool is blocked
+        configuration.enableParallelChecking(task -> {});
+        configuration.addOptionalArgument("numbers")
+                .setChecker(Util.isInteger());
+
+        CommandLine commandLine = getCommandLine(configuration, numbers(20000));
+
+        assertEquals(commandLine.numberOfValues("numbers"), 20000);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void parallelCheckingRethrowsCheckerException()
+    {
+        configuration.enableParallelChecking(Runnable::run);
+        configuration.addOptionalArgument("numbers")
+                .setChecker(value -> {
+                    if (value.equals("500")) {
+                        throw new IllegalStateException();
+                    }
+                    return true;
+                });
+
+        getCommandLine(configuration, numbers(1000));
+    }
+
+    @Test
+    public void intValues()
+    {
+        Option option = configuration.addOption("number", "-n")
+                .setValueType(ValueType.INT)
+                .setMaxNumberOfValues(3);
+        OptionalArgument numbers = configuration.addOptionalArgument("numbers")
+                .setValueType(ValueType.INT);
+
+        CommandLine commandLine = getCommandLine(
+                configuration,
+                new String[] {"-n", "1", "-n", "2", "3", "4", "5"});
+
+        IntValues values = commandLine.getInts("number");
+        assertEquals(values.toArray(), new int[] {1, 2});
+        assertEquals(values.getFirstValue(), 1);
+        assertEquals(commandLine.getInts("numbers").stream().sum(), 12);
+        assertEquals(commandLine.get("numbers").toList(), Arrays.asList("3", "4", "5"));
+        assertEquals(option.intValues().toArray(), new int[] {1, 2});
+        assertEquals(numbers.intValues().size(), 3);
+    }
+
+    @Test
+    public void longAndDoubleValues()
+    {
+        configuration.addOption("size", "-s")
+                .setValueType(ValueType.LONG)
+                .addDefaultValue("10000000000");
+        configuration.addOption("ratio", "-r")
+                .setValueType(ValueType.DOUBLE);
+        configuration.addOption("name", "--name");
+
+        CommandLine commandLine = configuration.compile().parse(new String[] {"-r", "0.5"});
+
+        assertEquals(commandLine.getLongs("size").getFirstValue(), 10000000000L);
+        assertEquals(commandLine.getDoubles("ratio").getFirstValue(), 0.5);
+        assertTrue(configuration.compile().parse(new String[0]).getDoubles("ratio").isEmpty());
+    }
+
+    @Test
+    public void numberConsumersGetParsedValues()
+    {
+        List<Object> values = new ArrayList<>();
+        configuration.setRemainderMode(RemainderMode.STREAM);
+        configuration.addOption("size", "-s")
+                .setValueType(ValueType.LONG)
+                .setConsumer(Util.longConsumer(values::add));
+        configuration.addOption("count", "-c")
+                .setValueType(ValueType.DOUBLE)
+                .setConsumer(Util.intConsumer(values::add));
+        configuration.addOptionalArgument("numbers")
+                .setValueType(ValueType.INT)
+                .setConsumer(Util.intConsumer(values::add));
+
+        getCommandLine(
+                configuration,
+                new String[] {"-s", "9223372036854775807", "-c", "3", "2147483647", "7"});
+
+        assertEquals(values, Arrays.asList(Long.MAX_VALUE, 3, Integer.MAX_VALUE, 7));
+    }
+
+    @Test(expectedExceptions = CheckException.class)
+    public void numberCantBeParsed()
+    {
+        configuration.addOptionalArgument("numbers")
+                .setValueType(ValueType.INT);
+
+        getCommandLine(configuration, new String[] {"1", "2", "3.5"});
+    }
+
+    @Test(expectedExceptions = CheckException.class)
+    public void streamedNumberIsChecked()
+    {
+        configuration.setRemainderMode(RemainderMode.STREAM);
+        configuration.addOptionalArgument("numbers")
+                .setValueType(ValueType.LONG);
+
+        getCommandLine(configuration, new String[] {"1", "2", "x"});
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void valuesOfWrongType()
+    {
+        configuration.addOption("number", "-n")
+                .setValueType(ValueType.INT);
+
+        configuration.compile().parse(new String[] {"-n", "1"}).getLongs("number");
+    }
+
+    @Test
+    public void parallelCheckingReportsFirstNumberFailure()
+    {
+        configuration.enableParallelChecking();
+        configuration.addOptionalArgument("numbers")
+                .setValueType(ValueType.INT)
+                .setChecker(value -> !value.equals("100"));
+
+        String[] args = numbers(1000);
+        args[500] = "x";
+
+        try {
+            getCommandLine(configuration, args);
+            fail("CheckException is expected");
+        } catch (CheckException e) {
+            assertTrue(e.getMessage().contains("<100>"));
+        }
+    }
+
+    @Test
+    public void typedOption()
+    {
+        List<Integer> consumed = new ArrayList<>();
+        TypedOption<Integer> port = configuration.addOption("port", "-p", Converters.port())
+                .addPrefix("--port")
+                .setConsumer(consumed::add);
+        TypedOption<Duration> timeout = configuration.addOption(
+                "timeout",
+                "-t",
+                Converters.duration())
+                .addDefaultValue("30s");
+        TypedArgument<Path> files = configuration.addOptionalArgument("files", Converters.path());
+
+        CommandLine commandLine = getCommandLine(
+                configuration,
+                new String[] {"--port=8080", "/tmp/a", "/tmp/b"});
+
+        assertEquals(commandLine.get(port), Collections.singletonList(8080));
+        assertEquals(commandLine.get(timeout), Collections.singletonList(Duration.ofSeconds(30)));
+        assertEquals(commandLine.get(files), Arrays.asList(Paths.get("/tmp/a"), Paths.get("/tmp/b")));
+        assertEquals(commandLine.get("port").getFirstValue(), "8080");
+        assertEquals(consumed, Collections.singletonList(8080));
+        assertEquals(port.value(), Optional.of(8080));
+        assertEquals(files.values().size(), 2);
+    }
+
+    @Test
+    public void typedOptionChecker()
+    {
+        configuration.addOption("level", "-l", Converters.integer())
+                .setChecker(level -> level % 2 == 0);
+
+        try {
+            getCommandLine(configuration, new String[] {"-l", "3"});
+            fail("CheckException is expected");
+        } catch (CheckException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test(expectedExceptions = CheckException.class)
+    public void valueCantBeConverted()
+    {
+        configuration.addRequiredArgument("port", Converters.port());
+
+        getCommandLine(configuration, new String[] {"http"});
+    }
+
+    @Test(expectedExceptions = UnknownNameException.class)
+    public void typedOptionFromOtherConfiguration()
+    {
+        CommandLineConfiguration other = new CommandLineConfiguration();
+        TypedOption<Integer> port = other.addOption("port", "-p", Converters.port());
+        configuration.addOption("port", "-p", Converters.port());
+
+        configuration.compile().parse(new String[0]).get(port);
+    }
+
+    @Test
+    public void typedStreamedRemainder()
+    {
+        AtomicInteger sum = new AtomicInteger();
+        configuration.setRemainderMode(RemainderMode.STREAM);
+        TypedArgument<Integer> numbers = configuration.addOptionalArgument(
+                "numbers",
+                Converters.integer())
+                .setConsumer(sum::addAndGet);
+
+        CommandLine commandLine = configuration.compile().parse(new String[] {"1", "2", "3"});
+
+        assertEquals(sum.get(), 6);
+        assertEquals(commandLine.get(numbers), Collections.singletonList(1));
+    }
+
+    @Test
+    public void untypedHandles()
+    {
+        TypedOption<Integer> level = configuration.addOption("level", "-l", Converters.integer());
+        TypedArgument<Integer> number = configuration.addRequiredArgument(
+                "number",
+                Converters.integer());
+
+        CommandLine commandLine = configuration.compile().parse(new String[] {"-l", "3", "4"});
+
+        assertEquals(commandLine.get(level.option()).getFirstValue(), "3");
+        assertEquals(commandLine.get(number.argument()).getFirstValue(), "4");
+        assertEquals(number.argument().name(), "number");
+        assertTrue(number.argument().isRequired());
+    }
+
+    @Test
+    public void remainderIsSliceOfArgs()
+    {
+        configuration.addOption("level", "-l");
+        configuration.addRequiredArgument("command");
+        OptionalArgument files = configuration.addOptionalArgument("files");
+
+        CommandLine commandLine = getCommandLine(
+                configuration,
+                new String[] {"copy", "a", "-l", "1", "b", "c", "d"});
+
+        assertEquals(commandLine.get("command").toList(), Collections.singletonList("copy"));
+        assertEquals(commandLine.get("files").toList(), Arrays.asList("a", "b", "c", "d"));
+        assertEquals(commandLine.get("files").getValue(3), "d");
+        assertEquals(files.value(), Optional.of("a"));
+        assertEquals(files.remainder().toList(), Arrays.asList("b", "c", "d"));
+        assertEquals(files.values().size(), 4);
+    }
+
+    @Test
+    public void remainderWithDefaultValues()
+    {
+        OptionalArgument files = configuration.addOptionalArgument("files")
+                .addDefaultValue("a")
+                .addDefaultValue("b");
+
+        CommandLine commandLine = getCommandLine(configuration, new String[0]);
+
+        assertEquals(commandLine.get("files").toList(), Arrays.asList("a", "b"));
+        assertEquals(files.value(), Optional.of("a"));
+        assertEquals(files.remainder().toList(), Collections.singletonList("b"));
+    }
+
+    @Test
+    public void sliceIsCopiedWhenValueIsAttached()
+    {
+        configuration.addFlag("verbose", "--verbose");
+        configuration.addOptionalArgument("files");
+
+        CommandLine commandLine = configuration.compile()
+                .parse(new String[] {"a", "b", "--verbose=c", "d"});
+
+        assertEquals(commandLine.get("files").toList(), Arrays.asList("a", "b", "c", "d"));
+    }
+
+    @Test
+    public void sliceDoesntSeeChangesOfArgs()
+    {
+        configuration.addOptionalArgument("files");
+        CompiledParser parser = configuration.compile();
+
+        String[] args = {"a", "b", "c"};
+        CommandLine commandLine = parser.parse(args);
+        CommandLine asyncCommandLine = parser.parseAsync(args).join();
+        args[1] = "x";
+
+        assertEquals(commandLine.get("files").toList(), Arrays.asList("a", "b", "c"));
+        assertEquals(asyncCommandLine.get("files").toList(), Arrays.asList("a", "b", "c"));
+    }
+
+    @Test
+    public void getByHandle()
+    {
+        Option level = configuration.addOption("level", "-l");
+        Flag verbose = configuration.addFlag("verbose", "-v");
+        Flag quiet = configuration.addFlag("quiet", "-q");
+        RequiredArgument command = configuration.addRequiredArgument("command");
+        OptionalArgument files = configuration.addOptionalArgument("files");
+
+        CommandLine commandLine = configuration.compile()
+                .parse(new String[] {"-v", "-l", "3", "copy", "a", "b"});
+
+        assertEquals(commandLine.get(level).getFirstValue(), "3");
+        assertEquals(commandLine.get(command).getFirstValue(), "copy");
+        assertEquals(commandLine.get(files).toList(), Arrays.asList("a", "b"));
+        assertTrue(commandLine.isFlagSet(verbose));
+        assertFalse(commandLine.isFlagSet(quiet));
+    }
+
+    @Test(expectedExceptions = UnknownNameException.class)
+    public void optionHandleFromOtherConfiguration()
+    {
+        Option other = new CommandLineConfiguration().addOption("level", "-l");
+        configuration.addOption("level", "-l");
+
+        configuration.compile().parse(new String[0]).get(other);
+    }
+
+    @Test(expectedExceptions = UnknownNameException.class)
+    public void flagHandleFromOtherConfiguration()
+    {
+        Flag other = new CommandLineConfiguration().addFlag("verbose", "-v");
+
+        configuration.compile().parse(new String[0]).isFlagSet(other);
+    }
+
+    @Test
+    public void equalValuesAreDeduplicated()
+    {
+        configuration.enableValueDeduplication();
+        configuration.addOption("tag", "--tag")
+                .setMaxNumberOfValues(2);
+        configuration.addOptionalArgument("files");
+
+        CommandLine commandLine = configuration.compile().parse(new String[] {
+                "--tag", new String("prod"), "--tag=prod", new String("prod"), new String("prod")});
+
+        Values tags = commandLine.get("tag");
+        Values files = commandLine.get("files");
+        assertEquals(tags.toList(), Arrays.asList("prod", "prod"));
+        assertEquals(files.toList(), Arrays.asList("prod", "prod"));
+        assertSame(tags.getValue(1), tags.getValue(0));
+        assertSame(files.getValue(0), tags.getValue(0));
+        assertSame(files.getValue(1), tags.getValue(0));
+    }
+
+    @Test
+    public void offHeapRemainder()
+    {
+        configuration.setRemainderMode(RemainderMode.OFF_HEAP);
+        configuration.addRequiredArgument("command");
+        OptionalArgument files = configuration.addOptionalArgument("files");
+
+        CommandLine commandLine = getCommandLine(
+                configuration,
+                new String[] {"copy", "a", "b", "c"});
+
+        assertEquals(commandLine.get("command").getFirstValue(), "copy");
+        assertEquals(commandLine.get("files").toList(), Arrays.asList("a", "b", "c"));
+        assertEquals(commandLine.numberOfValues("files"), 3);
+        assertEquals(files.value(), Optional.of("a"));
+        assertEquals(files.remainder().toList(), Arrays.asList("b", "c"));
+    }
+
+    @Test
+    public void typedOffHeapRemainder()
+    {
+        configuration.setRemainderMode(RemainderMode.OFF_HEAP);
+        TypedArgument<Integer> numbers = configuration.addOptionalArgument(
+                "numbers",
+                Converters.integer())
+                .addDefaultValue("0");
+
+        CompiledParser parser = configuration.compile();
+
+        assertEquals(parser.parse(new String[] {"1", "2"}).get(numbers), Arrays.asList(1, 2));
+        assertEquals(parser.parse(new String[0]).get(numbers), Collections.singletonList(0));
+    }
 }
@@ -0,0 +1,126 @@
+package io.github.elkin.commandline;
+
+import io.github.elkin.commandline.exception.ValidationException;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class ConcurrentParsingTest {
+    private static final int NUMBER_OF_THREADS = 8;
+    private static final int NUMBER_OF_PARSES = 2000;
+
+    private static CompiledParser compile()
+    {
+        CommandLineConfiguration configuration = new CommandLineConfiguration();
+        Option level = configuration.addOption("level", "-l")
+                .setValueType(ValueType.INT);
+        Option output = configuration.addOption("output", "-o")
+                .addDefaultValue("out");
+        Flag verbose = configuration.addFlag("verbose", "-v");
+        Flag quiet = configuration.addFlag("quiet", "-q");
+        configuration.addRequiredArgument("command");
+        configuration.addOptionalArgument("files");
+
+        GroupValidator validator = new GroupValidator();
+        validator.addGroup("loud")
+                .addFlag(verbose)
+                .addOption(level);
+        validator.addGroup("silent")
+                .addFlag(quiet)
+                .addOption(output);
+        configuration.addValidator(validator);
+        return configuration.compile();
+    }
+
+    // Every thread parses its own args, odd parses of odd threads use
+    // options from both groups and have to fail
+    private static Void parse(CompiledParser parser, int thread, CountDownLatch start)
+            throws InterruptedException
+    {
+        start.await();
+        for (int i = 0; i < NUMBER_OF_PARSES; ++i) {
+            String file = thread + "/" + i;
+            boolean isInvalid = thread % 2 == 1 && i % 2 == 1;
+            String[] args = isInvalid
+                    ? new String[] {"-v", "-q", "copy", file}
+                    : new String[] {"-v", "-l", String.valueOf(i), "copy", file, file};
+
+            try {
+                CommandLine commandLine = parser.parse(args);
+                assertFalse(isInvalid);
+                assertEquals(commandLine.getInts("level").getFirstValue(), i);
+                assertEquals(commandLine.get("files").toList(), Arrays.asList(file, file));
+                assertEquals(commandLine.get("output").getFirstValue(), "out");
+                assertTrue(commandLine.isFlagSet("verbose"));
+                assertFalse(commandLine.isFlagSet("quiet"));
+            } catch (ValidationException e) {
+                assertTrue(isInvalid);
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void threadsDontInterfere() throws Exception
+    {
+        CompiledParser parser = compile();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int thread = 0; thread < NUMBER_OF_THREADS; ++thread) {
+                int current = thread;
+                results.add(executor.submit(() -> parse(parser, current, start)));
+            }
+            start.countDown();
+
+            for (Future<Void> result : results) {
+                result.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void configurationIsNotChanged()
+    {
+        CompiledParser parser = compile();
+
+        parser.parse(new String[] {"-v", "-l", "1", "copy", "a"});
+
+        Flag verbose = parser.flags().get(parser.flagIndex("verbose"));
+        Option level = parser.options().get(parser.valueIndex("level"));
+        assertFalse(verbose.isSet());
+        assertTrue(level.values().isEmpty());
+    }
+
+    @Test
+    public void defaultValuesDontActivateGroup()
+    {
+        CompiledParser parser = compile();
+
+        try {
+            parser.parse(new String[] {"-o", "file", "-v", "copy"});
+            fail("ValidationException is expected");
+        } catch (ValidationException e) {
+            assertTrue(e.getMessage().contains("Group silent -o"));
+        }
+
+        CommandLine commandLine = parser.parse(new String[] {"-v", "copy"});
+        assertFalse(commandLine.isProvided("output"));
+        assertTrue(commandLine.isProvided("command"));
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.elkin.commandline;
+
+import org.testng.annotations.Test;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+
+public class ConvertersTest {
+    @Test
+    public void integer()
+    {
+        assertEquals(Converters.integer().convert("-42"), Integer.valueOf(-42));
+        assertEquals(Converters.integer(1, 3).convert("3"), Integer.valueOf(3));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void integerOverflow()
+    {
+        Converters.integer().convert("2147483648");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void integerOutOfRange()
+    {
+        Converters.integer(1, 3).convert("4");
+    }
+
+    @Test
+    public void port()
+    {
+        assertEquals(Converters.port().convert("8080"), Integer.valueOf(8080));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidPort()
+    {
+        Converters.port().convert("65536");
+    }
+
+    @Test
+    public void numbers()
+    {
+        assertEquals(Converters.longInteger().convert("10000000000"), Long.valueOf(10000000000L));
+        assertEquals(Converters.decimal().convert("1.5e2"), 150.0);
+    }
+
+    @Test
+    public void path()
+    {
+        assertEquals(Converters.path().convert("/tmp/file"), Paths.get("/tmp/file"));
+    }
+
+    @Test
+    public void duration()
+    {
+        assertEquals(Converters.duration().convert("PT1M30S"), Duration.ofSeconds(90));
+        assertEquals(Converters.duration().convert("500ms"), Duration.ofMillis(500));
+        assertEquals(Converters.duration().convert("2h"), Duration.ofHours(2));
+        assertEquals(Converters.duration().convert("3d"), Duration.ofDays(3));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidDuration()
+    {
+        Converters.duration().convert("10 minutes");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void durationWithoutAmount()
+    {
+        Converters.duration().convert("ms");
+    }
+
+    @Test
+    public void enumeration()
+    {
+        Converter<TimeUnit> converter = Converters.enumeration(TimeUnit.class);
+        assertEquals(converter.convert("SECONDS"), TimeUnit.SECONDS);
+        assertEquals(converter.convert("minutes"), TimeUnit.MINUTES);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void unknownEnumConstant()
+    {
+        Converters.enumeration(TimeUnit.class).convert("weeks");
+    }
+}
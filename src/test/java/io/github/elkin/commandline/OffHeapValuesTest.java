@@ -0,0 +1,65 @@
+package io.github.elkin.commandline;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class OffHeapValuesTest {
+    @Test
+    public void empty()
+    {
+        assertTrue(new OffHeapValues().isEmpty());
+    }
+
+    @Test
+    public void values()
+    {
+        OffHeapValues values = new OffHeapValues();
+        values.append("first");
+        values.append("caf\u00e9");
+        values.append("");
+
+        assertEquals(values, Arrays.asList("first", "caf\u00e9", ""));
+    }
+
+    @Test
+    public void valueBiggerThanChunk()
+    {
+        String big = String.join("", Collections.nCopies(3 << 20, "x"));
+        OffHeapValues values = new OffHeapValues();
+        values.append("small");
+        values.append(big);
+        values.append("next");
+
+        assertEquals(values.get(1), big);
+        assertEquals(values.get(2), "next");
+    }
+
+    @Test
+    public void manyValues()
+    {
+        int size = 300000;
+        OffHeapValues values = new OffHeapValues();
+        for (int i = 0; i < size; ++i) {
+            values.append("/some/path/file" + i);
+        }
+
+        assertEquals(values.size(), size);
+        assertEquals(values.get(0), "/some/path/file0");
+        assertEquals(values.get(size - 1), "/some/path/file" + (size - 1));
+        assertEquals(values.stream().filter(value -> value.endsWith("7")).count(), size / 10);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void wrongIndex()
+    {
+        OffHeapValues values = new OffHeapValues();
+        values.append("first");
+
+        values.get(1);
+    }
+}
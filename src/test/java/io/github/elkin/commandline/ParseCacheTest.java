@@ -0,0 +1,105 @@
+package io.github.elkin.commandline;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class ParseCacheTest {
+    private CommandLineConfiguration configuration;
+    private AtomicInteger checks;
+
+    @BeforeMethod
+    public void setup()
+    {
+        checks = new AtomicInteger();
+        configuration = new CommandLineConfiguration();
+        configuration.addOption("level", "-l")
+                .setChecker(value -> checks.incrementAndGet() > 0);
+        configuration.addOptionalArgument("files");
+    }
+
+    @Test
+    public void hit()
+    {
+        CompiledParser parser = configuration.enableParseCache(2).compile();
+
+        CommandLine first = parser.parse(new String[] {"-l", "1", "a"});
+        CommandLine second = parser.parse(new String[] {"-l", "1", "a"});
+
+        assertTrue(parser.isParseCacheUsed());
+        assertSame(second, first);
+        assertEquals(checks.get(), 1);
+        assertEquals(parser.parseCacheHits(), 1);
+        assertEquals(parser.parseCacheMisses(), 1);
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted()
+    {
+        CompiledParser parser = configuration.enableParseCache(2).compile();
+
+        CommandLine first = parser.parse(new String[] {"a"});
+        parser.parse(new String[] {"b"});
+        assertSame(parser.parse(new String[] {"a"}), first);
+        parser.parse(new String[] {"c"});
+
+        assertSame(parser.parse(new String[] {"a"}), first);
+        parser.parse(new String[] {"b"});
+        assertEquals(parser.parseCacheHits(), 2);
+        assertEquals(parser.parseCacheMisses(), 4);
+    }
+
+    @Test
+    public void argsAreCopied()
+    {
+        CompiledParser parser = configuration.enableParseCache(2).compile();
+        String[] args = {"a", "b"};
+
+        CommandLine first = parser.parse(args);
+        args[1] = "c";
+        CommandLine second = parser.parse(args);
+
+        assertNotSame(second, first);
+        assertEquals(first.get("files").toList(), Arrays.asList("a", "b"));
+        assertEquals(second.get("files").toList(), Arrays.asList("a", "c"));
+    }
+
+    @Test
+    public void notUsedWithConsumers()
+    {
+        AtomicInteger consumed = new AtomicInteger();
+        configuration.addFlag("verbose", "-v")
+                .setConsumer(flag -> consumed.incrementAndGet());
+        CompiledParser parser = configuration.enableParseCache(2).compile();
+
+        parser.parse(new String[] {"-v"});
+        parser.parse(new String[] {"-v"});
+
+        assertFalse(parser.isParseCacheUsed());
+        assertEquals(consumed.get(), 2);
+        assertEquals(parser.parseCacheMisses(), 0);
+    }
+
+    @Test
+    public void disabledByDefault()
+    {
+        CompiledParser parser = configuration.compile();
+
+        assertNotSame(parser.parse(new String[] {"a"}), parser.parse(new String[] {"a"}));
+        assertFalse(parser.isParseCacheUsed());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void wrongSize()
+    {
+        configuration.enableParseCache(0);
+    }
+}
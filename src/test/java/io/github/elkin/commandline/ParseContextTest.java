@@ -0,0 +1,133 @@
+package io.github.elkin.commandline;
+
+import io.github.elkin.commandline.exception.CommandLineException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class ParseContextTest {
+    private CommandLineConfiguration configuration;
+    private TypedOption<Duration> timeout;
+
+    @BeforeMethod
+    public void setup()
+    {
+        configuration = new CommandLineConfiguration();
+        configuration.addOption("level", "-l")
+                .setValueType(ValueType.INT)
+                .setMaxNumberOfValues(2);
+        configuration.addOption("name", "-n")
+                .addDefaultValue("default");
+        configuration.addFlag("verbose", "-v")
+                .setMaxNumberOfValues(3);
+        timeout = configuration.addOption("timeout", "-t", Converters.duration());
+        configuration.addOptionalArgument("files");
+    }
+
+    @Test
+    public void commandLineIsReused()
+    {
+        ParseContext context = configuration.compile().newContext();
+
+        CommandLine first = context.parse(new String[] {"-l", "1", "a"});
+        assertEquals(first.getInts("level").toArray(), new int[] {1});
+        assertEquals(first.get("files").toList(), Collections.singletonList("a"));
+
+        CommandLine second = context.parse(new String[] {"b", "c"});
+        assertSame(second, first);
+        assertTrue(second.getInts("level").isEmpty());
+        assertTrue(second.get("level").isEmpty());
+        assertEquals(second.get("files").toList(), Arrays.asList("b", "c"));
+    }
+
+    @Test
+    public void stateIsReset()
+    {
+        ParseContext context = configuration.compile().newContext();
+
+        context.parse(new String[] {"-vv", "-n", "name", "-t", "5s", "-l", "1", "-l", "2", "a"});
+        CommandLine commandLine = context.parse(new String[] {"-v", "-t", "1s"});
+
+        assertTrue(commandLine.isFlagSet("verbose"));
+        assertEquals(commandLine.get("name").toList(), Collections.singletonList("default"));
+        assertFalse(commandLine.isProvided("name"));
+        assertEquals(commandLine.get(timeout), Collections.singletonList(Duration.ofSeconds(1)));
+        assertTrue(commandLine.getInts("level").isEmpty());
+        assertTrue(commandLine.get("files").isEmpty());
+
+        commandLine = context.parse(new String[0]);
+        assertFalse(commandLine.isFlagSet("verbose"));
+        assertTrue(commandLine.get(timeout).isEmpty());
+    }
+
+    @Test
+    public void stateIsResetAfterFailure()
+    {
+        ParseContext context = configuration.compile().newContext();
+
+        try {
+            context.parse(new String[] {"-v", "-l", "1", "-l", "2", "-l", "3"});
+            fail();
+        } catch (CommandLineException e) {
+            // expected
+        }
+
+        CommandLine commandLine = context.parse(new String[] {"-l", "4"});
+        assertFalse(commandLine.isFlagSet("verbose"));
+        assertEquals(commandLine.getInts("level").toArray(), new int[] {4});
+    }
+
+    @Test
+    public void exceptionHandlerIsCalled()
+    {
+        ParseContext context = configuration.compile().newContext();
+        AtomicReference<CommandLineException> exception = new AtomicReference<>();
+
+        CommandLine commandLine = context.parse(
+                new String[] {"-l", "x"},
+                (configuration, args) -> {},
+                (e, configuration, args) -> exception.set(e));
+
+        assertEquals(commandLine, null);
+        assertTrue(exception.get() != null);
+    }
+
+    @Test
+    public void threadLocalContext() throws InterruptedException
+    {
+        CompiledParser parser = configuration.compile();
+        AtomicReference<ParseContext> other = new AtomicReference<>();
+
+        Thread thread = new Thread(() -> other.set(parser.threadLocalContext()));
+        thread.start();
+        thread.join();
+
+        assertSame(parser.threadLocalContext(), parser.threadLocalContext());
+        assertNotSame(other.get(), parser.threadLocalContext());
+        assertSame(parser.threadLocalContext().parser(), parser);
+    }
+
+    @Test
+    public void parseCacheIsNotUsed()
+    {
+        CompiledParser parser = configuration.enableParseCache(2).compile();
+        ParseContext context = parser.newContext();
+
+        context.parse(new String[] {"a"});
+        context.parse(new String[] {"a"});
+
+        assertEquals(parser.parseCacheHits(), 0);
+        assertEquals(parser.parseCacheMisses(), 0);
+    }
+}
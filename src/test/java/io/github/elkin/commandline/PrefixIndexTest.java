@@ -0,0 +1,97 @@
+package io.github.elkin.commandline;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class PrefixIndexTest {
+    private PrefixIndex index;
+
+    @BeforeMethod
+    public void setup()
+    {
+        CommandLineConfiguration configuration = new CommandLineConfiguration();
+        configuration.addOption("output", "-o")
+                .addPrefix("--output");
+        configuration.addOption("level", "--level");
+        configuration.addFlag("verbose", "-v");
+        index = new PrefixIndex(configuration.optionByPrefix(), configuration.flagByPrefix());
+    }
+
+    @Test
+    public void shortOption()
+    {
+        int entry = index.find("-o");
+        assertEquals(index.prefix(entry), "-o");
+        assertFalse(index.isFlag(entry));
+        assertEquals(index.target(entry), 0);
+        assertEquals(index.valueOffset("-o", entry), 2);
+    }
+
+    @Test
+    public void shortOptionWithAttachedValue()
+    {
+        int entry = index.find("-ofile");
+        assertEquals(index.prefix(entry), "-o");
+        assertEquals(index.valueOffset("-ofile", entry), 2);
+    }
+
+    @Test
+    public void longOptionWithEqualSign()
+    {
+        int entry = index.find("--output=file");
+        assertEquals(index.prefix(entry), "--output");
+        assertEquals(index.target(entry), 0);
+        assertEquals(index.valueOffset("--output=file", entry), "--output=".length());
+    }
+
+    @Test
+    public void longOptionIsMatchedExactly()
+    {
+        assertEquals(index.find("--out"), PrefixIndex.NO_ENTRY);
+        assertEquals(index.find("--outputs"), PrefixIndex.NO_ENTRY);
+        assertEquals(index.target(index.find("--level")), 1);
+    }
+
+    @Test
+    public void flags()
+    {
+        int entry = index.find("-vvv");
+        assertTrue(index.isFlag(entry));
+        assertEquals(index.prefix(entry), "-v");
+
+        assertEquals(index.findShort('v'), entry);
+        assertTrue(index.isFlag(index.findShort('h')));
+        assertEquals(index.findShort('x'), PrefixIndex.NO_ENTRY);
+    }
+
+    @Test
+    public void exactMatch()
+    {
+        assertEquals(index.findExact("-vv"), PrefixIndex.NO_ENTRY);
+        assertEquals(index.prefix(index.findExact("--help")), "--help");
+    }
+
+    @Test
+    public void unknownPrefix()
+    {
+        assertEquals(index.find("-x"), PrefixIndex.NO_ENTRY);
+        assertEquals(PrefixIndex.prefixOf("-xvalue"), "-x");
+        assertEquals(PrefixIndex.prefixOf("--unknown=value"), "--unknown");
+    }
+
+    @Test
+    public void nonAsciiShortFlag()
+    {
+        CommandLineConfiguration configuration = new CommandLineConfiguration();
+        configuration.addFlag("flag", "-\u00e9");
+        PrefixIndex index = new PrefixIndex(
+                configuration.optionByPrefix(),
+                configuration.flagByPrefix());
+
+        assertEquals(index.prefix(index.findShort('\u00e9')), "-\u00e9");
+    }
+}
@@ -0,0 +1,178 @@
+package io.github.elkin.commandline;
+
+import io.github.elkin.commandline.exception.SnapshotException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class SnapshotTest {
+    private Path file;
+    private CommandLineConfiguration configuration;
+
+    @BeforeMethod
+    public void setup() throws IOException
+    {
+        file = Files.createTempFile("commandline", ".snapshot");
+        configuration = new CommandLineConfiguration();
+    }
+
+    @AfterMethod
+    public void cleanup() throws IOException
+    {
+        Files.deleteIfExists(file);
+    }
+
+    private void write(CommandLine commandLine) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(
+                file,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            commandLine.writeSnapshot(channel);
+        }
+    }
+
+    @Test
+    public void valuesAreRestored() throws IOException
+    {
+        AtomicInteger checks = new AtomicInteger();
+        configuration.addOption("level", "-l")
+                .setValueType(ValueType.INT)
+                .setMaxNumberOfValues(2)
+                .setChecker(value -> checks.incrementAndGet() > 0);
+        configuration.addOption("name", "-n")
+                .addDefaultValue("default");
+        configuration.addFlag("verbose", "-v");
+        TypedOption<Duration> timeout = configuration.addOption(
+                "timeout",
+                "-t",
+                Converters.duration());
+        configuration.addOptionalArgument("files");
+        CompiledParser parser = configuration.compile();
+
+        write(parser.parse(new String[] {
+                "-v", "-l", "3", "-l", "4", "-t", "5s", "a", "caf\u00e9", "a"}));
+        CommandLine commandLine = CommandLine.mapSnapshot(parser, file);
+
+        assertEquals(checks.get(), 2);
+        assertEquals(commandLine.getInts("level").toArray(), new int[] {3, 4});
+        assertEquals(commandLine.get("level").toList(), Arrays.asList("3", "4"));
+        assertEquals(commandLine.get("name").getFirstValue(), "default");
+        assertEquals(commandLine.get(timeout), Collections.singletonList(Duration.ofSeconds(5)));
+        assertEquals(
+                commandLine.get("files").toList(),
+                Arrays.asList("a", "caf\u00e9", "a"));
+        assertTrue(commandLine.isFlagSet("verbose"));
+    }
+
+    @Test
+    public void emptyCommandLine() throws IOException
+    {
+        configuration.addFlag("verbose", "-v");
+        configuration.addOptionalArgument("files");
+        CompiledParser parser = configuration.compile();
+
+        write(parser.parse(new String[0]));
+        CommandLine commandLine = CommandLine.mapSnapshot(parser, file);
+
+        assertFalse(commandLine.isFlagSet("verbose"));
+        assertTrue(commandLine.get("files").isEmpty());
+    }
+
+    @Test
+    public void streamedValuesAreCounted() throws IOException
+    {
+        configuration.setRemainderMode(RemainderMode.STREAM);
+        configuration.addOptionalArgument("files");
+        CompiledParser parser = configuration.compile();
+
+        write(parser.parse(new String[] {"a", "b", "c"}));
+        CommandLine commandLine = CommandLine.mapSnapshot(parser, file);
+
+        assertEquals(commandLine.get("files").toList(), Collections.singletonList("a"));
+        assertEquals(commandLine.numberOfValues("files"), 3);
+    }
+
+    @Test(expectedExceptions = SnapshotException.class)
+    public void otherConfiguration() throws IOException
+    {
+        configuration.addOption("level", "-l");
+        write(configuration.compile().parse(new String[] {"-l", "3"}));
+
+        CommandLineConfiguration other = new CommandLineConfiguration();
+        other.addOption("level", "--level");
+
+        CommandLine.mapSnapshot(other.compile(), file);
+    }
+
+    @Test(expectedExceptions = SnapshotException.class)
+    public void truncatedSnapshot() throws IOException
+    {
+        configuration.addOptionalArgument("files");
+        CompiledParser parser = configuration.compile();
+        write(parser.parse(new String[] {"first", "second"}));
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        CommandLine.mapSnapshot(parser, file);
+    }
+
+    @Test
+    public void optionChangedAfterCompile() throws IOException
+    {
+        Option level = configuration.addOption("level", "-l")
+                .setValueType(ValueType.INT);
+        CompiledParser parser = configuration.compile();
+        write(parser.parse(new String[] {"-l", "3"}));
+
+        // the compiled parser doesn't see the changes
+        level.addPrefix("--level").setValueType(ValueType.LONG);
+
+        assertEquals(CommandLine.mapSnapshot(parser, file).getInts("level").toArray(), new int[] {3});
+    }
+
+    @Test
+    public void damagedStringId() throws IOException
+    {
+        configuration.addOptionalArgument("files");
+        CompiledParser parser = configuration.compile();
+        write(parser.parse(new String[] {"first", "second"}));
+
+        // header, a default byte, slot starts, the end and the first id
+        int secondId = 32 + 1 + 2 * Integer.BYTES + Integer.BYTES;
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[secondId + 3] = 7;
+        Files.write(file, bytes);
+
+        try {
+            CommandLine.mapSnapshot(parser, file);
+            fail("SnapshotException is expected");
+        } catch (SnapshotException e) {
+            assertTrue(e.getMessage().contains("string id"));
+        }
+    }
+
+    @Test(expectedExceptions = SnapshotException.class)
+    public void notSnapshot() throws IOException
+    {
+        Files.write(file, new byte[] {1, 2, 3});
+
+        CommandLine.mapSnapshot(configuration.compile(), file);
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.elkin.commandline;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class UtilTest {
+    private static void assertAccepts(Predicate<String> checker, String... values)
+    {
+        for (String value : values) {
+            assertTrue(checker.test(value), value);
+        }
+    }
+
+    private static void assertRejects(Predicate<String> checker, String... values)
+    {
+        for (String value : values) {
+            assertFalse(checker.test(value), value);
+        }
+    }
+
+    @Test
+    public void textualCheckers()
+    {
+        assertAccepts(Util.isNaturalNumber(), "0", "007", "123456789012345678901234567890");
+        assertRejects(Util.isNaturalNumber(), "", "-1", "+1", "1a", "\u0661");
+
+        assertAccepts(Util.isPositiveInteger(), "1", "10", "123456789012345678901234567890");
+        assertRejects(Util.isPositiveInteger(), "", "0", "01", "-1");
+
+        assertAccepts(Util.isInteger(), "0", "-0", "-15", "123456789012345678901234567890");
+        assertRejects(Util.isInteger(), "", "-", "+1", "--1", "1-");
+    }
+
+    @Test
+    public void isInt()
+    {
+        assertAccepts(Util.isInt(), "0", "+1", "-1", "2147483647", "-2147483648", "0002147483647");
+        assertRejects(Util.isInt(), "", "-", "+", "2147483648", "-2147483649",
+                "123456789012345678901234567890", "1.0", " 1", "0x10");
+    }
+
+    @Test
+    public void isLong()
+    {
+        assertAccepts(Util.isLong(), "9223372036854775807", "-9223372036854775808");
+        assertRejects(Util.isLong(), "9223372036854775808", "-9223372036854775809",
+                "99999999999999999999");
+    }
+
+    @Test
+    public void isDouble()
+    {
+        assertAccepts(Util.isDouble(), "1", "-1.5", "+.5", "1.", "1e10", "1.5E-3", "2e+3");
+        assertRejects(Util.isDouble(), "", ".", "-", "e1", "1e", "1e+", "NaN", "1.5f", " 1", "1..2");
+    }
+
+    @Test
+    public void ranges()
+    {
+        assertAccepts(Util.intInRange(1, 65535), "1", "80", "65535");
+        assertRejects(Util.intInRange(1, 65535), "0", "65536", "-1", "port");
+
+        assertAccepts(Util.longInRange(Long.MIN_VALUE, 0), "-9223372036854775808", "0");
+        assertRejects(Util.longInRange(Long.MIN_VALUE, 0), "1");
+
+        assertAccepts(Util.doubleInRange(0, 1), "0", "0.5", "1.0");
+        assertRejects(Util.doubleInRange(0, 1), "-0.1", "1.01", "half");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidRange()
+    {
+        Util.intInRange(2, 1);
+    }
+
+    @Test
+    public void primitiveConsumers()
+    {
+        List<Object> values = new ArrayList<>();
+        Util.intConsumer(values::add).accept("-7");
+        Util.longConsumer(values::add).accept("10000000000");
+        Util.doubleConsumer(values::add).accept("0.25");
+
+        assertEquals(values, Arrays.asList(-7, 10000000000L, 0.25));
+    }
+
+    @Test
+    public void longMinValue()
+    {
+        List<Object> values = new ArrayList<>();
+        Util.longConsumer(values::add).accept("-0009223372036854775808");
+
+        assertEquals(values, Arrays.asList(Long.MIN_VALUE));
+        assertRejects(Util.longInRange(Long.MIN_VALUE + 1, 0), "-9223372036854775808");
+        assertRejects(Util.isLong(), "-09223372036854775809", "-9223372036854775808.0");
+    }
+
+    @Test(expectedExceptions = NumberFormatException.class)
+    public void primitiveConsumerRejectsInvalidValue()
+    {
+        Util.intConsumer(value -> {}).accept("2147483648");
+    }
+}
@@ -0,0 +1,299 @@
+package io.github.elkin.commandline.server;
+
+import io.github.elkin.commandline.CommandLineConfiguration;
+import io.github.elkin.commandline.CompiledParser;
+import io.github.elkin.commandline.Option;
+import io.github.elkin.commandline.ValueType;
+import io.github.elkin.commandline.exception.ValidationException;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class CommandServerTest {
+    private CommandServer server;
+    private ByteArrayOutputStream out;
+    private ByteArrayOutputStream err;
+    private Path directory;
+    private Path tokenFile;
+
+    @BeforeMethod
+    public void setup() throws IOException
+    {
+        CommandLineConfiguration configuration = new CommandLineConfiguration();
+        configuration.addOption("operation", "-o")
+                .addDefaultValue("sum");
+        configuration.addRequiredArgument("numbers")
+                .setValueType(ValueType.INT);
+        CompiledParser parser = configuration.compile();
+
+        server = new CommandServer().register("calc", parser, (commandLine, out, err) -> {
+            if (!commandLine.get("operation").getFirstValue().equals("sum")) {
+                err.println("unsupported");
+                return 3;
+            }
+            out.print(commandLine.getInts("numbers").stream().sum());
+            return 0;
+        });
+        server.register("fail", parser, (commandLine, out, err) -> {
+            throw new IllegalStateException("broken");
+        });
+        out = new ByteArrayOutputStream();
+        err = new ByteArrayOutputStream();
+        directory = Files.createTempDirectory("commandline");
+        tokenFile = directory.resolve("server.token");
+    }
+
+    @AfterMethod
+    public void cleanup() throws IOException
+    {
+        server.close();
+        Files.delete(directory);
+    }
+
+    private int runLoopback(int port, String... argv) throws IOException
+    {
+        out.reset();
+        err.reset();
+        return CommandClient.runLoopback(port, tokenFile, argv, out, err);
+    }
+
+    private static boolean isPosix(Path path)
+    {
+        return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    private String out()
+    {
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String err()
+    {
+        return new String(err.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void outputAndExitCode() throws IOException
+    {
+        int port = server.startLoopback(0, tokenFile);
+
+        assertEquals(runLoopback(port, "calc", "1", "2", "3"), 0);
+        assertEquals(out(), "6");
+        assertEquals(err(), "");
+
+        assertEquals(runLoopback(port, "calc", "-o", "prod", "1"), 3);
+        assertEquals(out(), "");
+        assertEquals(err().trim(), "unsupported");
+    }
+
+    @Test
+    public void helpReturnsExitCode() throws IOException
+    {
+        int port = server.startLoopback(0, tokenFile);
+
+        assertEquals(runLoopback(port, "calc", "-h"), CommandServer.HELP_EXIT_CODE);
+        assertTrue(out().contains("numbers"));
+
+        // the server is still running
+        assertEquals(runLoopback(port, "calc", "4"), 0);
+        assertEquals(out(), "4");
+    }
+
+    @Test
+    public void errorReturnsExitCode() throws IOException
+    {
+        int port = server.startLoopback(0, tokenFile);
+
+        assertEquals(runLoopback(port, "calc", "x"), CommandServer.ERROR_EXIT_CODE);
+        assertFalse(err().isEmpty());
+        assertEquals(out(), "");
+
+        assertEquals(runLoopback(port, "fail", "1"), CommandServer.ERROR_EXIT_CODE);
+        assertTrue(err().contains("broken"));
+
+        assertEquals(runLoopback(port, "calc", "5"), 0);
+        assertEquals(out(), "5");
+    }
+
+    @Test
+    public void configurationValidatorIsRefused() throws IOException
+    {
+        CommandLineConfiguration configuration = new CommandLineConfiguration();
+        Option option = configuration.addOption("option", "-o");
+        configuration.addValidator((arguments, options, flags) -> {
+            if (!option.values().isEmpty()) {
+                throw new ValidationException("forbidden");
+            }
+        });
+        server.register("validated", configuration.compile(), (commandLine, out, err) -> 0);
+        int port = server.startLoopback(0, tokenFile);
+
+        assertEquals(runLoopback(port, "validated", "-o", "1"), CommandServer.ERROR_EXIT_CODE);
+        assertTrue(err().contains("validate(CommandLine)"));
+    }
+
+    @Test
+    public void unknownCommand() throws IOException
+    {
+        int port = server.startLoopback(0, tokenFile);
+
+        assertEquals(runLoopback(port, "other"), CommandServer.UNKNOWN_COMMAND_EXIT_CODE);
+        assertTrue(err().contains("other"));
+        assertEquals(runLoopback(port), CommandServer.UNKNOWN_COMMAND_EXIT_CODE);
+    }
+
+    @Test
+    public void unixSocket() throws IOException
+    {
+        if (!CommandServer.isUnixSocketSupported()) {
+            throw new SkipException("UNIX domain sockets aren't supported");
+        }
+
+        Path socket = directory.resolve("server.sock");
+        try {
+            server.startUnix(socket, tokenFile);
+            if (isPosix(socket)) {
+                assertEquals(Files.getPosixFilePermissions(socket),
+                        PosixFilePermissions.fromString("rw-------"));
+            }
+
+            assertEquals(CommandClient.runUnix(
+                    socket, tokenFile, new String[] {"calc", "7", "8"}, out, err), 0);
+            assertEquals(out(), "15");
+
+            server.close();
+            assertFalse(Files.exists(socket));
+        } finally {
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    @Test
+    public void tokenFileIsReadableByOwnerOnly() throws IOException
+    {
+        int port = server.startLoopback(0, tokenFile);
+        // listeners share the token file
+        assertTrue(server.startLoopback(0, tokenFile) != port);
+
+        if (isPosix(tokenFile)) {
+            assertEquals(Files.getPosixFilePermissions(tokenFile),
+                    PosixFilePermissions.fromString("rw-------"));
+        }
+
+        server.close();
+        assertFalse(Files.exists(tokenFile));
+    }
+
+    @Test
+    public void requestWithWrongTokenIsRejected() throws IOException
+    {
+        int port = server.startLoopback(0, tokenFile);
+        Path otherTokenFile = directory.resolve("other.token");
+        try (CommandServer other = new CommandServer()) {
+            other.startLoopback(0, otherTokenFile);
+            try {
+                CommandClient.runLoopback(
+                        port, otherTokenFile, new String[] {"calc", "1"}, out, err);
+                fail("IOException is expected");
+            } catch (IOException e) {
+                assertEquals(out(), "");
+            }
+        }
+
+        // the server is still running
+        assertEquals(runLoopback(port, "calc", "2"), 0);
+        assertEquals(out(), "2");
+    }
+
+    private static SocketChannel connect(int port) throws IOException
+    {
+        return SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    @Test(timeOut = 10000)
+    public void idleConnectionIsClosed() throws IOException
+    {
+        server.setRequestTimeout(Duration.ofMillis(100));
+        int port = server.startLoopback(0, tokenFile);
+
+        try (SocketChannel idle = connect(port)) {
+            // nothing is sent, the server closes the connection
+            assertEquals(idle.read(ByteBuffer.allocate(1)), -1);
+        }
+    }
+
+    @Test
+    public void connectionsOverLimitAreClosed() throws IOException
+    {
+        server.setMaxConnections(1);
+        int port = server.startLoopback(0, tokenFile);
+
+        try (SocketChannel idle = connect(port)) {
+            idle.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, Frames.MAGIC));
+            try {
+                runLoopback(port, "calc", "1");
+                fail("IOException is expected");
+            } catch (IOException e) {
+                assertEquals(out(), "");
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void requestIsLimited() throws IOException
+    {
+        int port = server.startLoopback(0, tokenFile);
+        String[] argv = new String[Frames.MAX_REQUEST_SIZE / 1024];
+        Arrays.fill(argv, new String(new char[1024]));
+        argv[0] = "calc";
+
+        runLoopback(port, argv);
+    }
+
+    @Test(timeOut = 10000)
+    public void oversizedRequestIsDropped() throws IOException
+    {
+        int port = server.startLoopback(0, tokenFile);
+        byte[] token = Files.readAllBytes(tokenFile);
+
+        try (SocketChannel client = connect(port)) {
+            ByteBuffer request = ByteBuffer.allocate(3 * Integer.BYTES + token.length);
+            request.putInt(Frames.MAGIC).put(token).putInt(1).putInt(Frames.MAX_REQUEST_SIZE);
+            request.flip();
+            client.write(request);
+
+            // the string doesn't fit in the request, nothing is allocated for it
+            assertEquals(client.read(ByteBuffer.allocate(1)), -1);
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void existingTokenFileIsntOverwritten() throws IOException
+    {
+        Files.write(tokenFile, new byte[0]);
+        try {
+            server.startLoopback(0, tokenFile);
+        } finally {
+            Files.delete(tokenFile);
+        }
+    }
+}